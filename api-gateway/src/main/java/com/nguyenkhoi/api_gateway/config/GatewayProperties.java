@@ -3,6 +3,7 @@ package com.nguyenkhoi.api_gateway.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 @Component
 @ConfigurationProperties(prefix = "gateway")
@@ -23,6 +24,10 @@ public class GatewayProperties {
         
         private boolean enableRateLimiting = true;
         private int rateLimitPerMinute = 100;
+        private int rateLimitBurst = 0;
+        private String rateLimitBackend = "local";
+        private int rateLimitShards = 64;
+        private Duration rateLimitEvictionInterval = Duration.ofMinutes(1);
 
         public List<String> getOpenEndpoints() { return openEndpoints; }
         public void setOpenEndpoints(List<String> openEndpoints) { this.openEndpoints = openEndpoints; }
@@ -32,6 +37,18 @@ public class GatewayProperties {
         
         public int getRateLimitPerMinute() { return rateLimitPerMinute; }
         public void setRateLimitPerMinute(int rateLimitPerMinute) { this.rateLimitPerMinute = rateLimitPerMinute; }
+
+        public int getRateLimitBurst() { return rateLimitBurst; }
+        public void setRateLimitBurst(int rateLimitBurst) { this.rateLimitBurst = rateLimitBurst; }
+
+        public String getRateLimitBackend() { return rateLimitBackend; }
+        public void setRateLimitBackend(String rateLimitBackend) { this.rateLimitBackend = rateLimitBackend; }
+
+        public int getRateLimitShards() { return rateLimitShards; }
+        public void setRateLimitShards(int rateLimitShards) { this.rateLimitShards = rateLimitShards; }
+
+        public Duration getRateLimitEvictionInterval() { return rateLimitEvictionInterval; }
+        public void setRateLimitEvictionInterval(Duration rateLimitEvictionInterval) { this.rateLimitEvictionInterval = rateLimitEvictionInterval; }
     }
 
     public static class Jwt {
@@ -39,6 +56,33 @@ public class GatewayProperties {
         private String issuer = "auth-service";
         private String audience = "social-media-platform";
 
+        private String jwksUri;
+        private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+        private Duration jwksMinRefetchInterval = Duration.ofSeconds(30);
+
+        private boolean enableTokenCache = true;
+        private long tokenCacheMaxSize = 100_000;
+
+        private boolean enableContextHeader = false;
+        private String contextHeaderSecret;
+
+        private boolean enableVerificationOffload = false;
+        private int verificationThreads = Runtime.getRuntime().availableProcessors();
+        private int verificationQueueCapacity = 1024;
+
+        private boolean enableRevocationCheck = false;
+        private String revocationStreamKey = "auth:access-token-revocations";
+        private Duration revocationPollInterval = Duration.ofSeconds(1);
+        private long revocationExpectedTokens = 100_000;
+        private double revocationFalsePositiveRate = 0.01;
+
+        private boolean enableSessionRevocationCheck = false;
+        private String sessionRevocationChannel = "auth:session-revocations";
+        private String revokedSessionsKey = "auth:revoked-sessions";
+        private String userRevocationEpochsKey = "auth:user-revocation-epochs";
+        private Duration sessionRevocationResyncInterval = Duration.ofSeconds(30);
+        private Duration sessionRevocationRetention = Duration.ofMinutes(15);
+
         public String getPublicKeyPath() { return publicKeyPath; }
         public void setPublicKeyPath(String publicKeyPath) { this.publicKeyPath = publicKeyPath; }
         
@@ -47,6 +91,69 @@ public class GatewayProperties {
         
         public String getAudience() { return audience; }
         public void setAudience(String audience) { this.audience = audience; }
+
+        public String getJwksUri() { return jwksUri; }
+        public void setJwksUri(String jwksUri) { this.jwksUri = jwksUri; }
+
+        public Duration getJwksRefreshInterval() { return jwksRefreshInterval; }
+        public void setJwksRefreshInterval(Duration jwksRefreshInterval) { this.jwksRefreshInterval = jwksRefreshInterval; }
+
+        public Duration getJwksMinRefetchInterval() { return jwksMinRefetchInterval; }
+        public void setJwksMinRefetchInterval(Duration jwksMinRefetchInterval) { this.jwksMinRefetchInterval = jwksMinRefetchInterval; }
+
+        public boolean isEnableTokenCache() { return enableTokenCache; }
+        public void setEnableTokenCache(boolean enableTokenCache) { this.enableTokenCache = enableTokenCache; }
+
+        public long getTokenCacheMaxSize() { return tokenCacheMaxSize; }
+        public void setTokenCacheMaxSize(long tokenCacheMaxSize) { this.tokenCacheMaxSize = tokenCacheMaxSize; }
+
+        public boolean isEnableContextHeader() { return enableContextHeader; }
+        public void setEnableContextHeader(boolean enableContextHeader) { this.enableContextHeader = enableContextHeader; }
+
+        public String getContextHeaderSecret() { return contextHeaderSecret; }
+        public void setContextHeaderSecret(String contextHeaderSecret) { this.contextHeaderSecret = contextHeaderSecret; }
+
+        public boolean isEnableVerificationOffload() { return enableVerificationOffload; }
+        public void setEnableVerificationOffload(boolean enableVerificationOffload) { this.enableVerificationOffload = enableVerificationOffload; }
+
+        public int getVerificationThreads() { return verificationThreads; }
+        public void setVerificationThreads(int verificationThreads) { this.verificationThreads = verificationThreads; }
+
+        public int getVerificationQueueCapacity() { return verificationQueueCapacity; }
+        public void setVerificationQueueCapacity(int verificationQueueCapacity) { this.verificationQueueCapacity = verificationQueueCapacity; }
+
+        public boolean isEnableRevocationCheck() { return enableRevocationCheck; }
+        public void setEnableRevocationCheck(boolean enableRevocationCheck) { this.enableRevocationCheck = enableRevocationCheck; }
+
+        public String getRevocationStreamKey() { return revocationStreamKey; }
+        public void setRevocationStreamKey(String revocationStreamKey) { this.revocationStreamKey = revocationStreamKey; }
+
+        public Duration getRevocationPollInterval() { return revocationPollInterval; }
+        public void setRevocationPollInterval(Duration revocationPollInterval) { this.revocationPollInterval = revocationPollInterval; }
+
+        public long getRevocationExpectedTokens() { return revocationExpectedTokens; }
+        public void setRevocationExpectedTokens(long revocationExpectedTokens) { this.revocationExpectedTokens = revocationExpectedTokens; }
+
+        public double getRevocationFalsePositiveRate() { return revocationFalsePositiveRate; }
+        public void setRevocationFalsePositiveRate(double revocationFalsePositiveRate) { this.revocationFalsePositiveRate = revocationFalsePositiveRate; }
+
+        public boolean isEnableSessionRevocationCheck() { return enableSessionRevocationCheck; }
+        public void setEnableSessionRevocationCheck(boolean enableSessionRevocationCheck) { this.enableSessionRevocationCheck = enableSessionRevocationCheck; }
+
+        public String getSessionRevocationChannel() { return sessionRevocationChannel; }
+        public void setSessionRevocationChannel(String sessionRevocationChannel) { this.sessionRevocationChannel = sessionRevocationChannel; }
+
+        public String getRevokedSessionsKey() { return revokedSessionsKey; }
+        public void setRevokedSessionsKey(String revokedSessionsKey) { this.revokedSessionsKey = revokedSessionsKey; }
+
+        public String getUserRevocationEpochsKey() { return userRevocationEpochsKey; }
+        public void setUserRevocationEpochsKey(String userRevocationEpochsKey) { this.userRevocationEpochsKey = userRevocationEpochsKey; }
+
+        public Duration getSessionRevocationResyncInterval() { return sessionRevocationResyncInterval; }
+        public void setSessionRevocationResyncInterval(Duration sessionRevocationResyncInterval) { this.sessionRevocationResyncInterval = sessionRevocationResyncInterval; }
+
+        public Duration getSessionRevocationRetention() { return sessionRevocationRetention; }
+        public void setSessionRevocationRetention(Duration sessionRevocationRetention) { this.sessionRevocationRetention = sessionRevocationRetention; }
     }
 
     public static class Cors {
@@ -0,0 +1,159 @@
+package com.nguyenkhoi.api_gateway.exception;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes the gateway's JSON error body
+ * {@code {"error":{"message":..,"status":..,"timestamp":..,"path":..}}} from precomputed
+ * byte templates. Only the timestamp, cached per millisecond, and the escaped request path
+ * are spliced in, so a rejected request costs one buffer and no string formatting.
+ */
+public final class ErrorResponseWriter {
+
+    private static final byte[] PATH_FIELD = bytes("\",\"path\":\"");
+    private static final byte[] SUFFIX = bytes("\"}}");
+    private static final byte[] HEX = bytes("0123456789abcdef");
+    private static final String DEFAULT_MESSAGE = "An error occurred while processing your request";
+
+    private static final ErrorTemplate[] OTHER_TEMPLATES = new ErrorTemplate[600];
+
+    private static volatile CachedTimestamp timestamp = new CachedTimestamp(Long.MIN_VALUE, new byte[0]);
+
+    private ErrorResponseWriter() {
+    }
+
+    /**
+     * Predefined error responses, each with its body prefix encoded up front.
+     */
+    public enum ErrorType {
+        MISSING_AUTHORIZATION_HEADER(HttpStatus.UNAUTHORIZED, "Missing authorization header"),
+        INVALID_AUTHORIZATION_HEADER(HttpStatus.UNAUTHORIZED, "Invalid authorization header format"),
+        INVALID_TOKEN(HttpStatus.UNAUTHORIZED, "Invalid JWT token"),
+        TOKEN_REVOKED(HttpStatus.UNAUTHORIZED, "Token has been revoked"),
+        TOKEN_VALIDATION_FAILED(HttpStatus.UNAUTHORIZED, "Token validation failed"),
+        UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "Authentication required"),
+        FORBIDDEN(HttpStatus.FORBIDDEN, "Access denied"),
+        NOT_FOUND(HttpStatus.NOT_FOUND, "Resource not found"),
+        TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded"),
+        SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Service temporarily unavailable");
+
+        private final ErrorTemplate template;
+
+        ErrorType(HttpStatus status, String message) {
+            this.template = new ErrorTemplate(status, message);
+        }
+
+        public HttpStatus getStatus() { return template.status; }
+        public String getMessage() { return template.message; }
+    }
+
+    public static Mono<Void> write(ServerWebExchange exchange, ErrorType type) {
+        return write(exchange, type.template);
+    }
+
+    /**
+     * Writes the body {@link GlobalExceptionHandler} uses for a status without a dedicated
+     * {@link ErrorType}.
+     */
+    public static Mono<Void> write(ServerWebExchange exchange, HttpStatus status) {
+        return write(exchange, defaultTemplate(status));
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, ErrorTemplate template) {
+        ServerHttpResponse response = exchange.getResponse();
+        String path = exchange.getRequest().getPath().value();
+        byte[] time = currentTimestamp();
+
+        response.setStatusCode(template.status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(
+            template.prefix.length + time.length + PATH_FIELD.length + path.length() * 6 + SUFFIX.length);
+        buffer.write(template.prefix);
+        buffer.write(time);
+        buffer.write(PATH_FIELD);
+        writeEscaped(buffer, path);
+        buffer.write(SUFFIX);
+
+        response.getHeaders().setContentLength(buffer.readableByteCount());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private static ErrorTemplate defaultTemplate(HttpStatus status) {
+        return switch (status) {
+            case UNAUTHORIZED -> ErrorType.UNAUTHORIZED.template;
+            case FORBIDDEN -> ErrorType.FORBIDDEN.template;
+            case NOT_FOUND -> ErrorType.NOT_FOUND.template;
+            case TOO_MANY_REQUESTS -> ErrorType.TOO_MANY_REQUESTS.template;
+            case SERVICE_UNAVAILABLE -> ErrorType.SERVICE_UNAVAILABLE.template;
+            default -> {
+                ErrorTemplate template = OTHER_TEMPLATES[status.value()];
+                if (template == null) {
+                    template = new ErrorTemplate(status, DEFAULT_MESSAGE);
+                    OTHER_TEMPLATES[status.value()] = template;
+                }
+                yield template;
+            }
+        };
+    }
+
+    private static byte[] currentTimestamp() {
+        long now = System.currentTimeMillis();
+        CachedTimestamp cached = timestamp;
+        if (cached.millis != now) {
+            cached = new CachedTimestamp(now, bytes(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(now))));
+            timestamp = cached;
+        }
+        return cached.bytes;
+    }
+
+    private static void writeEscaped(DataBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.write((byte) '\\');
+                buffer.write((byte) c);
+            } else if (c >= 0x20 && c < 0x7f) {
+                buffer.write((byte) c);
+            } else {
+                buffer.write((byte) '\\');
+                buffer.write((byte) 'u');
+                buffer.write(HEX[(c >> 12) & 0xf]);
+                buffer.write(HEX[(c >> 8) & 0xf]);
+                buffer.write(HEX[(c >> 4) & 0xf]);
+                buffer.write(HEX[c & 0xf]);
+            }
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record CachedTimestamp(long millis, byte[] bytes) {
+    }
+
+    private static final class ErrorTemplate {
+
+        private final HttpStatus status;
+        private final String message;
+        private final byte[] prefix;
+
+        ErrorTemplate(HttpStatus status, String message) {
+            this.status = status;
+            this.message = message;
+            this.prefix = bytes("{\"error\":{\"message\":\"" + message
+                + "\",\"status\":" + status.value() + ",\"timestamp\":\"");
+        }
+    }
+}
@@ -4,30 +4,35 @@ import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFac
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
-import java.util.List;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpHeaders;
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import java.nio.charset.StandardCharsets;
-import com.nguyenkhoi.api_gateway.config.GatewayProperties;
-import org.springframework.core.io.buffer.*;
+import java.util.concurrent.RejectedExecutionException;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter.ErrorType;
 @Component
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
 
-    private final JwtTokenValidator jwtTokenValidator;
+    /** Exchange attribute holding the verified subject, for filters that run after this one. */
+    public static final String USER_ID_ATTRIBUTE = AuthenticationFilter.class.getName() + ".userId";
 
-    public AuthenticationFilter(JwtTokenValidator jwtTokenValidator, GatewayProperties gatewayProperties) {
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final OpenEndpointMatcher openEndpointMatcher;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final SessionRevocationRegistry sessionRevocationRegistry;
+
+    public AuthenticationFilter(VerifiedTokenCache verifiedTokenCache,
+                                OpenEndpointMatcher openEndpointMatcher,
+                                RevokedTokenRegistry revokedTokenRegistry,
+                                SessionRevocationRegistry sessionRevocationRegistry) {
         super(Config.class);
-        this.jwtTokenValidator = jwtTokenValidator;
-        this.gatewayProperties = gatewayProperties;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.openEndpointMatcher = openEndpointMatcher;
+        this.revokedTokenRegistry = revokedTokenRegistry;
+        this.sessionRevocationRegistry = sessionRevocationRegistry;
     }
 
-    private final GatewayProperties gatewayProperties;
-
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
@@ -46,62 +51,49 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
         ServerHttpRequest request = exchange.getRequest();
         
         if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
-            return handleError(exchange, "Missing authorization header", HttpStatus.UNAUTHORIZED);
+            return handleError(exchange, ErrorType.MISSING_AUTHORIZATION_HEADER);
         }
 
         String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return handleError(exchange, "Invalid authorization header format", HttpStatus.UNAUTHORIZED);
+            return handleError(exchange, ErrorType.INVALID_AUTHORIZATION_HEADER);
         }
 
         String jwt = authHeader.substring(7);
         
-        try {
-            Claims claims = jwtTokenValidator.validateToken(jwt);
-            ServerHttpRequest modifiedRequest = addUserContextHeaders(request, claims);
-            return chain.filter(exchange.mutate().request(modifiedRequest).build());
-            
-        } catch (JwtException e) {
-            return handleError(exchange, "Invalid JWT token", HttpStatus.UNAUTHORIZED);
-        } catch (Exception e) {
-            return handleError(exchange, "Token validation failed", HttpStatus.UNAUTHORIZED);
-        }
+        return verifiedTokenCache.validate(jwt)
+            .map(token -> {
+                // Checked on every request, cached or not: a token can be revoked after it was verified.
+                if (revokedTokenRegistry.isRevoked(token.tokenId()) || sessionRevocationRegistry.isRevoked(token)) {
+                    throw new RevokedTokenException(token.tokenId());
+                }
+                if (token.userId() != null) {
+                    exchange.getAttributes().put(USER_ID_ATTRIBUTE, token.userId());
+                }
+                return exchange.mutate().request(addUserContextHeaders(request, token)).build();
+            })
+            .onErrorResume(e -> {
+                ErrorType error = e instanceof RevokedTokenException ? ErrorType.TOKEN_REVOKED
+                    : e instanceof JwtException ? ErrorType.INVALID_TOKEN
+                    : e instanceof RejectedExecutionException ? ErrorType.SERVICE_UNAVAILABLE
+                    : ErrorType.TOKEN_VALIDATION_FAILED;
+                return handleError(exchange, error).then(Mono.empty());
+            })
+            .flatMap(chain::filter);
     }
 
-    private ServerHttpRequest addUserContextHeaders(ServerHttpRequest request, Claims claims) {
-        @SuppressWarnings("unchecked")
-        List<String> roles = (List<String>) claims.get("roles");
-        
+    private ServerHttpRequest addUserContextHeaders(ServerHttpRequest request, VerifiedToken token) {
         return request.mutate()
-            .header("X-User-Id", claims.getSubject())
-            .header("X-User-Email", claims.get("email", String.class))
-            .header("X-User-Roles", roles != null ? String.join(",", roles) : "")
-            .header("X-Session-Id", claims.get("session_id", String.class))
+            .headers(token::applyTo)
             .build();
     }
 
-    private Mono<Void> handleError(ServerWebExchange exchange, String message, HttpStatus status) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(status);
-        response.getHeaders().add("Content-Type", "application/json");
-        
-        String errorBody = String.format(
-            "{\"error\": \"%s\", \"status\": %d, \"timestamp\": \"%s\"}", 
-            message, 
-            status.value(),
-            java.time.Instant.now().toString()
-        );
-        
-        DataBuffer buffer = 
-            response.bufferFactory().wrap(errorBody.getBytes(StandardCharsets.UTF_8));
-        
-        return response.writeWith(Mono.just(buffer));
+    private Mono<Void> handleError(ServerWebExchange exchange, ErrorType error) {
+        return ErrorResponseWriter.write(exchange, error);
     }
 
     private boolean isSecuredEndpoint(ServerHttpRequest request) {
-        String path = request.getURI().getPath();
-        return gatewayProperties.getSecurity().getOpenEndpoints().stream()
-            .noneMatch(openEndpoint -> path.startsWith(openEndpoint));
+        return !openEndpointMatcher.isOpen(request.getPath().value());
     }
 
     public static class Config {
@@ -0,0 +1,220 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves JWS verification keys by {@code kid} from a locally cached copy of the
+ * auth-service JWKS. The key map is swapped atomically by a background refresh, so the
+ * per-request lookup is a single map read; an unknown {@code kid} triggers at most one
+ * in-flight fetch, rate limited by {@code gateway.jwt.jwks-min-refetch-interval}.
+ * <p>
+ * Keys may be RSA, P-256 or Ed25519, so one JWKS can mix algorithms while the auth-service
+ * migrates between them. When {@code gateway.jwt.jwks-uri} is not set, the PEM at
+ * {@code jwt.public-key-path} is used for every token, as before.
+ */
+@Component
+public class JwksKeyResolver extends LocatorAdapter<Key> {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyResolver.class);
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(5);
+    private static final List<String> PUBLIC_KEY_ALGORITHMS = List.of("RSA", "EC", "Ed25519");
+
+    @Value("${jwt.public-key-path:}")
+    private String publicKeyPath;
+
+    private final GatewayProperties gatewayProperties;
+    private final ResourceLoader resourceLoader;
+    private final WebClient webClient;
+
+    private final AtomicReference<Mono<Map<String, Key>>> inflightFetch = new AtomicReference<>();
+    private volatile Map<String, Key> keys = Map.of();
+    private volatile PublicKey fallbackKey;
+    private volatile long nextRefetchNanos = System.nanoTime();
+    private Disposable refreshTask;
+
+    public JwksKeyResolver(GatewayProperties gatewayProperties,
+                           ResourceLoader resourceLoader,
+                           WebClient.Builder webClientBuilder) {
+        this.gatewayProperties = gatewayProperties;
+        this.resourceLoader = resourceLoader;
+        this.webClient = webClientBuilder.build();
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (StringUtils.hasText(publicKeyPath)) {
+            try {
+                this.fallbackKey = loadPublicKey(resourceLoader.getResource(publicKeyPath));
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to initialize JWT public key", e);
+            }
+        }
+
+        if (!isJwksEnabled()) {
+            if (fallbackKey == null) {
+                throw new IllegalStateException("Either gateway.jwt.jwks-uri or jwt.public-key-path must be configured");
+            }
+            return;
+        }
+
+        refreshTask = Flux.interval(Duration.ZERO, gatewayProperties.getJwt().getJwksRefreshInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> refresh()
+                .onErrorResume(e -> {
+                    log.warn("Failed to refresh JWKS from {}: {}", gatewayProperties.getJwt().getJwksUri(), e.getMessage());
+                    return Mono.empty();
+                }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String keyId = header.getKeyId();
+        if (keyId != null) {
+            Key key = keys.get(keyId);
+            if (key != null) {
+                return key;
+            }
+            if (isJwksEnabled()) {
+                throw new UnknownSigningKeyException(keyId);
+            }
+        }
+
+        PublicKey key = fallbackKey;
+        if (key == null) {
+            throw new UnknownSigningKeyException(keyId);
+        }
+        return key;
+    }
+
+    /**
+     * Fetches the JWKS again after a token referenced an unknown {@code kid}, unless the
+     * key has appeared in the meantime or the last fetch was too recent.
+     */
+    public Mono<Void> refreshForUnknownKey(String keyId) {
+        if (!isJwksEnabled() || (keyId != null && keys.containsKey(keyId))) {
+            return Mono.empty();
+        }
+        if (inflightFetch.get() == null && System.nanoTime() - nextRefetchNanos < 0) {
+            return Mono.empty();
+        }
+        return refresh()
+            .onErrorResume(e -> {
+                log.warn("Failed to fetch JWKS for unknown kid {}: {}", keyId, e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Map<String, Key>> refresh() {
+        Mono<Map<String, Key>> existing = inflightFetch.get();
+        if (existing != null) {
+            return existing;
+        }
+
+        Mono<Map<String, Key>> fetch = webClient.get()
+            .uri(gatewayProperties.getJwt().getJwksUri())
+            .retrieve()
+            .bodyToMono(String.class)
+            .timeout(FETCH_TIMEOUT)
+            .map(this::parseJwks)
+            .doOnNext(fetched -> {
+                this.keys = fetched;
+                log.debug("Loaded {} signing keys from JWKS", fetched.size());
+            })
+            .doFinally(signal -> {
+                nextRefetchNanos = System.nanoTime()
+                    + gatewayProperties.getJwt().getJwksMinRefetchInterval().toNanos();
+                inflightFetch.set(null);
+            })
+            .cache();
+
+        if (inflightFetch.compareAndSet(null, fetch)) {
+            return fetch;
+        }
+        Mono<Map<String, Key>> winner = inflightFetch.get();
+        return winner != null ? winner : Mono.just(keys);
+    }
+
+    private Map<String, Key> parseJwks(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, Key> parsed = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() != null) {
+                parsed.put(jwk.getId(), jwk.toKey());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private boolean isJwksEnabled() {
+        return StringUtils.hasText(gatewayProperties.getJwt().getJwksUri());
+    }
+
+    private PublicKey loadPublicKey(Resource publicKeyResource) throws Exception {
+        String publicKeyContent = StreamUtils.copyToString(
+            publicKeyResource.getInputStream(),
+            StandardCharsets.UTF_8
+        );
+
+        // Clean the PEM format
+        publicKeyContent = publicKeyContent
+            .replace("-----BEGIN PUBLIC KEY-----", "")
+            .replace("-----END PUBLIC KEY-----", "")
+            .replaceAll("\\s", "");
+
+        byte[] keyBytes = Base64.getDecoder().decode(publicKeyContent);
+        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
+
+        // The PEM carries no algorithm hint the JDK can use, so try each supported key type
+        for (String algorithm : PUBLIC_KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(spec);
+            } catch (InvalidKeySpecException e) {
+                // not this key type
+            }
+        }
+        throw new InvalidKeySpecException("Unsupported public key type in " + publicKeyResource.getDescription());
+    }
+}
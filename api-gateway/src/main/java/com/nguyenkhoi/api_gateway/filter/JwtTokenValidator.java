@@ -1,41 +1,53 @@
 package com.nguyenkhoi.api_gateway.filter;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
 import com.nguyenkhoi.api_gateway.config.GatewayProperties;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.JwtException;
 
-import jakarta.annotation.PostConstruct;
-import java.nio.charset.StandardCharsets;
-import java.security.KeyFactory;
-import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
-import java.util.Base64;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
 @Service
 public class JwtTokenValidator {
 
-    @Value("${jwt.public-key-path}")
-    private Resource publicKeyResource;
-    
     private final GatewayProperties gatewayProperties;
-    private PublicKey publicKey;
+    private final JwksKeyResolver keyResolver;
+    private final JwtVerificationScheduler verificationScheduler;
+
+    /**
+     * Parser built for the issuer/audience currently in {@link GatewayProperties.Jwt}.
+     * JJWT parsers are immutable and thread-safe, so a single instance is shared by
+     * every event-loop thread and only replaced when the bound properties change.
+     * Keys are looked up per token through {@link JwksKeyResolver}, so key rotation
+     * does not require a new parser.
+     */
+    private volatile ParserHolder parserHolder;
 
-    public JwtTokenValidator(GatewayProperties gatewayProperties) {
+    public JwtTokenValidator(GatewayProperties gatewayProperties,
+                             JwksKeyResolver keyResolver,
+                             JwtVerificationScheduler verificationScheduler) {
         this.gatewayProperties = gatewayProperties;
+        this.keyResolver = keyResolver;
+        this.verificationScheduler = verificationScheduler;
+        this.parserHolder = buildParser(gatewayProperties.getJwt());
     }
 
-    @PostConstruct
-    public void initializePublicKey() {
-        try {
-            this.publicKey = loadPublicKeyFromResource();
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to initialize JWT public key", e);
-        }
+    /**
+     * Validates the token, fetching the JWKS once more if it was signed with a key id
+     * this node has not seen yet. Signature checks run on {@link JwtVerificationScheduler}.
+     */
+    public Mono<Claims> validate(String token) {
+        return verify(token)
+            .onErrorResume(UnknownSigningKeyException.class, e -> keyResolver.refreshForUnknownKey(e.getKeyId())
+                .then(verify(token)));
+    }
+
+    private Mono<Claims> verify(String token) {
+        return verificationScheduler.offload(Mono.fromCallable(() -> validateToken(token)));
     }
 
     public Claims validateToken(String token) throws JwtException {
@@ -43,11 +55,7 @@ public class JwtTokenValidator {
             throw new JwtException("Token cannot be null or empty");
         }
 
-        Claims claims = Jwts.parser()
-            .verifyWith(publicKey)
-            .requireIssuer(gatewayProperties.getJwt().getIssuer())
-            .requireAudience(gatewayProperties.getJwt().getAudience())
-            .build()
+        Claims claims = currentParser()
             .parseSignedClaims(token)
             .getPayload();
 
@@ -55,28 +63,47 @@ public class JwtTokenValidator {
         return claims;
     }
 
+    private JwtParser currentParser() {
+        ParserHolder holder = parserHolder;
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        if (holder.matches(jwt)) {
+            return holder.parser();
+        }
+        return rebuildParser(jwt);
+    }
+
+    private synchronized JwtParser rebuildParser(GatewayProperties.Jwt jwt) {
+        ParserHolder holder = parserHolder;
+        if (!holder.matches(jwt)) {
+            holder = buildParser(jwt);
+            parserHolder = holder;
+        }
+        return holder.parser();
+    }
+
+    private ParserHolder buildParser(GatewayProperties.Jwt jwt) {
+        String issuer = jwt.getIssuer();
+        String audience = jwt.getAudience();
+
+        JwtParser parser = Jwts.parser()
+            .keyLocator(keyResolver)
+            .requireIssuer(issuer)
+            .requireAudience(audience)
+            .build();
+
+        return new ParserHolder(issuer, audience, parser);
+    }
+
     private void validateTokenExpiration(Claims claims) throws JwtException {
         if (claims.getExpiration() != null && claims.getExpiration().before(new java.util.Date())) {
             throw new JwtException("Token has expired");
         }
     }
 
-    private PublicKey loadPublicKeyFromResource() throws Exception {
-        String publicKeyContent = StreamUtils.copyToString(
-            publicKeyResource.getInputStream(), 
-            StandardCharsets.UTF_8
-        );
-        
-        // Clean the PEM format
-        publicKeyContent = publicKeyContent
-            .replace("-----BEGIN PUBLIC KEY-----", "")
-            .replace("-----END PUBLIC KEY-----", "")
-            .replaceAll("\\s", "");
-        
-        byte[] keyBytes = Base64.getDecoder().decode(publicKeyContent);
-        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-        
-        return keyFactory.generatePublic(spec);
+    private record ParserHolder(String issuer, String audience, JwtParser parser) {
+
+        boolean matches(GatewayProperties.Jwt jwt) {
+            return Objects.equals(issuer, jwt.getIssuer()) && Objects.equals(audience, jwt.getAudience());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dedicated pool for signature verification when {@code gateway.jwt.enable-verification-offload}
+ * is set, so RS256 work on cache misses no longer runs on the Netty event loop.
+ * <p>
+ * The queue is bounded: once it is full, new verifications fail fast with
+ * {@link RejectedExecutionException} and the request is answered with 503 instead of
+ * piling up behind the CPU-bound backlog.
+ */
+@Component
+public class JwtVerificationScheduler {
+
+    private final GatewayProperties gatewayProperties;
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+
+    public JwtVerificationScheduler(GatewayProperties gatewayProperties, MeterRegistry meterRegistry) {
+        this.gatewayProperties = gatewayProperties;
+
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        int threads = Math.max(1, jwt.getVerificationThreads());
+        Counter rejected = Counter.builder("gateway.jwt.verification.rejected")
+            .description("Token verifications rejected because the verification queue was full")
+            .register(meterRegistry);
+
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, jwt.getVerificationQueueCapacity())),
+            new VerificationThreadFactory(),
+            countingAbortPolicy(rejected));
+        this.scheduler = Schedulers.fromExecutorService(executor, "jwt-verification");
+
+        Gauge.builder("gateway.jwt.verification.queue.depth", executor, e -> e.getQueue().size())
+            .description("Token verifications waiting for a verification thread")
+            .register(meterRegistry);
+        Gauge.builder("gateway.jwt.verification.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Token verifications currently running")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs the verification on the dedicated pool when offloading is enabled, and inline
+     * otherwise. Downstream operators resume on the parallel scheduler so the pool only
+     * ever does verification work.
+     */
+    public <T> Mono<T> offload(Mono<T> verification) {
+        if (!gatewayProperties.getJwt().isEnableVerificationOffload()) {
+            return verification;
+        }
+        return verification
+            .subscribeOn(scheduler)
+            .publishOn(Schedulers.parallel());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private static RejectedExecutionHandler countingAbortPolicy(Counter rejected) {
+        return (task, executor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("JWT verification queue is full");
+        };
+    }
+
+    private static final class VerificationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jwt-verification-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
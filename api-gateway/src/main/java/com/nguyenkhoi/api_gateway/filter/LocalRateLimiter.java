@@ -0,0 +1,128 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets for {@link RateLimitFilter}, one per client key.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the GCRA "theoretical arrival
+ * time": a request is admitted by advancing it one emission interval with a CAS, so
+ * there is no lock and no refill bookkeeping. A bucket whose arrival time lies in the
+ * past is indistinguishable from a new one, which lets the sweeper drop it without
+ * changing any client's allowance and keeps memory proportional to recently active keys.
+ */
+@Component
+public class LocalRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final GatewayProperties gatewayProperties;
+    private final ConcurrentHashMap<String, AtomicLong>[] shards;
+    private final int shardMask;
+    private Disposable evictionTask;
+
+    @SuppressWarnings("unchecked")
+    public LocalRateLimiter(GatewayProperties gatewayProperties, MeterRegistry meterRegistry) {
+        this.gatewayProperties = gatewayProperties;
+
+        int shardCount = Integer.highestOneBit(Math.max(1, gatewayProperties.getSecurity().getRateLimitShards()) * 2 - 1);
+        this.shards = new ConcurrentHashMap[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        this.shardMask = shardCount - 1;
+
+        Gauge.builder("gateway.rate-limit.buckets", this, LocalRateLimiter::size)
+            .description("Number of in-memory rate limit buckets")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        evictionTask = Flux.interval(gatewayProperties.getSecurity().getRateLimitEvictionInterval())
+            .onBackpressureDrop()
+            .subscribe(tick -> evictIdle());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (evictionTask != null) {
+            evictionTask.dispose();
+        }
+    }
+
+    /**
+     * Takes one token from the bucket for {@code key}.
+     *
+     * @return {@code 0} if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    public long tryAcquire(String key) {
+        GatewayProperties.Security security = gatewayProperties.getSecurity();
+        long emissionInterval = emissionIntervalNanos(security);
+        long tolerance = emissionInterval * (burst(security) - 1);
+
+        ConcurrentHashMap<String, AtomicLong> shard = shardFor(key);
+        AtomicLong bucket = shard.get(key);
+        if (bucket == null) {
+            bucket = shard.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.get();
+            long start = tat - now < 0 ? now : tat;
+            long waitNanos = start - tolerance - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, start + emissionInterval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes buckets that have fully refilled. A request racing with the removal may
+     * still be admitted by the detached bucket, which is never more than one extra token.
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            shard.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    static long emissionIntervalNanos(GatewayProperties.Security security) {
+        return NANOS_PER_MINUTE / Math.max(1, security.getRateLimitPerMinute());
+    }
+
+    static int burst(GatewayProperties.Security security) {
+        int burst = security.getRateLimitBurst();
+        return burst > 0 ? burst : Math.max(1, security.getRateLimitPerMinute());
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> shardFor(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+}
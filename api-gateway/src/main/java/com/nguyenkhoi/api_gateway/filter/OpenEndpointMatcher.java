@@ -0,0 +1,141 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matches request paths against {@code gateway.security.open-endpoints}, compiled into a
+ * segment trie so a lookup is a single pass over the path with no allocation, however many
+ * open endpoints are configured.
+ * <p>
+ * An entry matches its own path and everything below it ({@code /auth/login} also opens
+ * {@code /auth/login/}). A {@code *} segment matches exactly one path segment and a
+ * {@code **} segment matches everything below it. The trie is rebuilt whenever the bound
+ * list is replaced, e.g. after a config refresh.
+ */
+@Component
+public class OpenEndpointMatcher {
+
+    private static final String SINGLE_WILDCARD = "*";
+    private static final String MULTI_WILDCARD = "**";
+
+    private final GatewayProperties gatewayProperties;
+    private volatile Compiled compiled;
+
+    public OpenEndpointMatcher(GatewayProperties gatewayProperties) {
+        this.gatewayProperties = gatewayProperties;
+        this.compiled = compile(gatewayProperties.getSecurity().getOpenEndpoints());
+    }
+
+    public boolean isOpen(String path) {
+        return current().root.matches(path, skipSlashes(path, 0));
+    }
+
+    private Compiled current() {
+        Compiled current = compiled;
+        List<String> openEndpoints = gatewayProperties.getSecurity().getOpenEndpoints();
+        if (current.source != openEndpoints) {
+            current = compile(openEndpoints);
+            compiled = current;
+        }
+        return current;
+    }
+
+    private static Compiled compile(List<String> openEndpoints) {
+        Node root = new Node(null);
+        if (openEndpoints != null) {
+            for (String endpoint : openEndpoints) {
+                if (endpoint != null) {
+                    root.insert(endpoint);
+                }
+            }
+        }
+        return new Compiled(openEndpoints, root);
+    }
+
+    private static int skipSlashes(String path, int index) {
+        while (index < path.length() && path.charAt(index) == '/') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private record Compiled(List<String> source, Node root) {
+    }
+
+    private static final class Node {
+
+        private final String segment;
+        private Node[] children = new Node[0];
+        private Node wildcard;
+        private boolean terminal;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        void insert(String pattern) {
+            Node node = this;
+            int start = skipSlashes(pattern, 0);
+            while (start < pattern.length() && !node.terminal) {
+                int end = segmentEnd(pattern, start);
+                String segment = pattern.substring(start, end);
+                if (MULTI_WILDCARD.equals(segment)) {
+                    break;
+                }
+                node = SINGLE_WILDCARD.equals(segment) ? node.wildcardChild() : node.literalChild(segment);
+                start = skipSlashes(pattern, end);
+            }
+            node.terminal = true;
+        }
+
+        boolean matches(String path, int start) {
+            if (terminal) {
+                return true;
+            }
+            if (start >= path.length()) {
+                return false;
+            }
+
+            int end = segmentEnd(path, start);
+            int next = skipSlashes(path, end);
+            int length = end - start;
+            for (Node child : children) {
+                if (child.segment.length() == length
+                        && path.regionMatches(start, child.segment, 0, length)
+                        && child.matches(path, next)) {
+                    return true;
+                }
+            }
+            return wildcard != null && wildcard.matches(path, next);
+        }
+
+        private Node wildcardChild() {
+            if (wildcard == null) {
+                wildcard = new Node(SINGLE_WILDCARD);
+            }
+            return wildcard;
+        }
+
+        private Node literalChild(String segment) {
+            for (Node child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            List<Node> expanded = new ArrayList<>(List.of(children));
+            Node child = new Node(segment);
+            expanded.add(child);
+            children = expanded.toArray(new Node[0]);
+            return child;
+        }
+    }
+}
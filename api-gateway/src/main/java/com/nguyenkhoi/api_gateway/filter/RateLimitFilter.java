@@ -0,0 +1,101 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter.ErrorType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces {@code gateway.security.rate-limit-per-minute} per client. Authenticated
+ * requests are keyed by the verified user id that {@link AuthenticationFilter} stores on
+ * the exchange, so it must be listed after that filter on a route; anything else is keyed
+ * by the remote address. The client-supplied {@code X-User-Id} header is never trusted.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    private static final String REDIS_BACKEND = "redis";
+
+    private final GatewayProperties gatewayProperties;
+    private final LocalRateLimiter localRateLimiter;
+    private final ObjectProvider<RedisBucketRateLimiter> redisRateLimiter;
+    private final Counter rejected;
+
+    public RateLimitFilter(GatewayProperties gatewayProperties,
+                           LocalRateLimiter localRateLimiter,
+                           ObjectProvider<RedisBucketRateLimiter> redisRateLimiter,
+                           MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.gatewayProperties = gatewayProperties;
+        this.localRateLimiter = localRateLimiter;
+        this.redisRateLimiter = redisRateLimiter;
+        this.rejected = Counter.builder("gateway.rate-limit.rejected")
+            .description("Requests rejected by the gateway rate limiter")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            GatewayProperties.Security security = gatewayProperties.getSecurity();
+            if (!security.isEnableRateLimiting()) {
+                return chain.filter(exchange);
+            }
+
+            String key = resolveKey(exchange);
+            if (key == null) {
+                return chain.filter(exchange);
+            }
+
+            if (REDIS_BACKEND.equalsIgnoreCase(security.getRateLimitBackend())) {
+                RedisBucketRateLimiter limiter = redisRateLimiter.getIfAvailable();
+                if (limiter != null) {
+                    return limiter.tryAcquire(key)
+                        .flatMap(waitNanos -> proceedOrReject(exchange, chain, waitNanos));
+                }
+            }
+
+            return proceedOrReject(exchange, chain, localRateLimiter.tryAcquire(key));
+        };
+    }
+
+    private Mono<Void> proceedOrReject(ServerWebExchange exchange, GatewayFilterChain chain, long waitNanos) {
+        if (waitNanos <= 0) {
+            return chain.filter(exchange);
+        }
+
+        rejected.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return ErrorResponseWriter.write(exchange, ErrorType.TOO_MANY_REQUESTS);
+    }
+
+    private String resolveKey(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+        if (userId != null) {
+            return userId;
+        }
+
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return null;
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    public static class Config {
+    }
+}
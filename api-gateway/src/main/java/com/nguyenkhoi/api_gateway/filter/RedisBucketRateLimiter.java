@@ -0,0 +1,83 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide variant of {@link LocalRateLimiter} for {@code gateway.security.rate-limit-backend=redis}.
+ * The same GCRA step runs as a Lua script against Redis' own clock, so every gateway node
+ * shares one bucket per key and each decision costs a single round trip.
+ */
+@Component
+@ConditionalOnProperty(prefix = "gateway.security", name = "rate-limit-backend", havingValue = "redis")
+public class RedisBucketRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisBucketRateLimiter.class);
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    // ARGV[1] = emission interval, ARGV[2] = burst tolerance, both in microseconds.
+    // Returns 0 when admitted, otherwise the microseconds until the next request would be.
+    private static final RedisScript<Long> GCRA_SCRIPT = RedisScript.of("""
+        local emission = tonumber(ARGV[1])
+        local tolerance = tonumber(ARGV[2])
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+        local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+        if tat < now then tat = now end
+        if tat - tolerance > now then
+          return tat - tolerance - now
+        end
+        local next = tat + emission
+        redis.call('SET', KEYS[1], next, 'PX', math.ceil((next - now) / 1000))
+        return 0
+        """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final GatewayProperties gatewayProperties;
+    private final Counter failures;
+
+    public RedisBucketRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                            GatewayProperties gatewayProperties,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.gatewayProperties = gatewayProperties;
+        this.failures = Counter.builder("gateway.rate-limit.redis.failures")
+            .description("Rate limit checks admitted because Redis could not be reached")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the shared bucket for {@code key}. Requests are admitted when
+     * Redis is unavailable, so an outage degrades to no limiting rather than no traffic.
+     *
+     * @return {@code 0} if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    public Mono<Long> tryAcquire(String key) {
+        GatewayProperties.Security security = gatewayProperties.getSecurity();
+        long emissionMicros = TimeUnit.NANOSECONDS.toMicros(LocalRateLimiter.emissionIntervalNanos(security));
+        long toleranceMicros = emissionMicros * (LocalRateLimiter.burst(security) - 1);
+
+        return redisTemplate.execute(GCRA_SCRIPT, List.of(KEY_PREFIX + key),
+                List.of(Long.toString(emissionMicros), Long.toString(toleranceMicros)))
+            .next()
+            .map(TimeUnit.MICROSECONDS::toNanos)
+            .defaultIfEmpty(0L)
+            .onErrorResume(e -> {
+                failures.increment();
+                log.debug("Rate limit check failed for {}: {}", key, e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+}
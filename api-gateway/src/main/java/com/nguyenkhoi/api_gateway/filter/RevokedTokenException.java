@@ -0,0 +1,14 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Raised for a correctly signed, unexpired token that has been revoked, either by its
+ * {@code jti} or through its session.
+ */
+public class RevokedTokenException extends JwtException {
+
+    public RevokedTokenException(String tokenId) {
+        super("Token has been revoked: " + tokenId);
+    }
+}
@@ -0,0 +1,177 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local view of revoked access tokens, checked on every authenticated request.
+ * <p>
+ * The auth-service appends each revocation as a {@code jti}/{@code exp} entry to a Redis
+ * stream. This registry reads the whole stream on startup and then tails it every
+ * {@code gateway.jwt.revocation-poll-interval}, adding unexpired entries to an exact set
+ * guarded by a bloom filter. The request path never touches Redis: almost every token is
+ * rejected by the bloom filter after a few bit probes, and only possible hits consult the set.
+ * Entries are dropped once the token has expired anyway, and the bloom filter is rebuilt
+ * when enough of them are gone or the set outgrows it.
+ */
+@Component
+public class RevokedTokenRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenRegistry.class);
+    private static final int READ_BATCH_SIZE = 1000;
+    private static final String JTI_FIELD = "jti";
+    private static final String EXPIRY_FIELD = "exp";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final GatewayProperties gatewayProperties;
+    private final Counter failures;
+
+    // jti -> exp in epoch millis; written only by the poll loop
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile StringBloomFilter bloomFilter;
+    private String lastRecordId = "0-0";
+    private long removedSinceRebuild;
+    private Disposable pollTask;
+
+    public RevokedTokenRegistry(ReactiveStringRedisTemplate redisTemplate,
+                                GatewayProperties gatewayProperties,
+                                MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.gatewayProperties = gatewayProperties;
+        this.failures = Counter.builder("gateway.jwt.revocation.sync.failures")
+            .description("Revocation stream reads that failed; the last known revocations stay in force")
+            .register(meterRegistry);
+
+        Gauge.builder("gateway.jwt.revocation.size", revoked, Map::size)
+            .description("Revoked, not yet expired access tokens known to this node")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        if (!jwt.isEnableRevocationCheck()) {
+            return;
+        }
+        bloomFilter = new StringBloomFilter(jwt.getRevocationExpectedTokens(), jwt.getRevocationFalsePositiveRate());
+        pollTask = Flux.interval(Duration.ZERO, jwt.getRevocationPollInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> catchUp(), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pollTask != null) {
+            pollTask.dispose();
+        }
+    }
+
+    /**
+     * Whether the token with this {@code jti} has been revoked. Tokens without a {@code jti}
+     * predate revocation support and are never reported as revoked.
+     */
+    public boolean isRevoked(String tokenId) {
+        StringBloomFilter filter = bloomFilter;
+        if (filter == null || tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private Mono<Void> catchUp() {
+        return readBatch()
+            .expand(count -> count >= READ_BATCH_SIZE ? readBatch() : Mono.empty())
+            .then(Mono.fromRunnable(this::pruneExpired));
+    }
+
+    private Mono<Long> readBatch() {
+        String streamKey = gatewayProperties.getJwt().getRevocationStreamKey();
+        return redisTemplate.<String, String>opsForStream()
+            .read(StreamReadOptions.empty().count(READ_BATCH_SIZE),
+                StreamOffset.create(streamKey, ReadOffset.from(lastRecordId)))
+            .doOnNext(this::apply)
+            .count()
+            .onErrorResume(e -> {
+                failures.increment();
+                log.warn("Failed to read revocation stream {}: {}", streamKey, e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+
+    private void apply(MapRecord<String, String, String> record) {
+        lastRecordId = record.getId().getValue();
+
+        Map<String, String> value = record.getValue();
+        String jti = value.get(JTI_FIELD);
+        String expiry = value.get(EXPIRY_FIELD);
+        if (jti == null || expiry == null) {
+            return;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expiry);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring revocation {} with invalid expiry {}", record.getId(), expiry);
+            return;
+        }
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        // Set first, then bloom bits: a reader that sees the bits always finds the entry.
+        revoked.put(jti, expiresAt);
+        bloomFilter.put(jti);
+    }
+
+    private void pruneExpired() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        removedSinceRebuild += before - revoked.size();
+
+        StringBloomFilter filter = bloomFilter;
+        if (removedSinceRebuild > filter.capacity() / 10 || revoked.size() > filter.capacity()) {
+            rebuildBloomFilter(filter.capacity());
+        }
+    }
+
+    private void rebuildBloomFilter(long previousCapacity) {
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        long capacity = Math.max(jwt.getRevocationExpectedTokens(), previousCapacity);
+        while (revoked.size() > capacity) {
+            capacity *= 2;
+        }
+
+        StringBloomFilter filter = new StringBloomFilter(capacity, jwt.getRevocationFalsePositiveRate());
+        for (String jti : revoked.keySet()) {
+            filter.put(jti);
+        }
+        bloomFilter = filter;
+        removedSinceRebuild = 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local session kill switch, fed by the auth-service's session revocations.
+ * <p>
+ * Revoked {@code session_id}s and per-user revocation epochs arrive on a Redis pub/sub
+ * channel for immediate effect. Because pub/sub drops messages while disconnected, the
+ * sorted sets the auth-service keeps alongside are read as a snapshot whenever the
+ * subscription is (re)established and again every
+ * {@code gateway.jwt.session-revocation-resync-interval}. Both sources only ever raise an
+ * entry's revocation time, so they can be applied in any order.
+ * <p>
+ * {@link #isRevoked(VerifiedToken)} works on values already extracted into the cached
+ * {@link VerifiedToken} and does not allocate.
+ */
+@Component
+public class SessionRevocationRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionRevocationRegistry.class);
+    private static final String SESSION_PREFIX = "session:";
+    private static final String USER_PREFIX = "user:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final GatewayProperties gatewayProperties;
+    private final Counter failures;
+
+    // id -> revocation time in epoch millis
+    private final Map<String, Long> revokedSessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> userEpochs = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+    private Disposable subscription;
+    private Disposable resyncTask;
+
+    public SessionRevocationRegistry(ReactiveStringRedisTemplate redisTemplate,
+                                     GatewayProperties gatewayProperties,
+                                     MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.gatewayProperties = gatewayProperties;
+        this.failures = Counter.builder("gateway.jwt.session-revocation.sync.failures")
+            .description("Session revocation subscriptions or snapshot reads that failed")
+            .register(meterRegistry);
+
+        Gauge.builder("gateway.jwt.session-revocation.sessions", revokedSessions, Map::size)
+            .description("Revoked sessions known to this node")
+            .register(meterRegistry);
+        Gauge.builder("gateway.jwt.session-revocation.users", userEpochs, Map::size)
+            .description("Users with a session revocation epoch known to this node")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initialize() {
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        if (!jwt.isEnableSessionRevocationCheck()) {
+            return;
+        }
+        enabled = true;
+
+        subscription = redisTemplate.listenToChannelLater(jwt.getSessionRevocationChannel())
+            .flatMapMany(messages -> Flux.merge(
+                messages.doOnNext(message -> apply(message.getMessage())).then(),
+                loadSnapshot()))
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .doBeforeRetry(signal -> {
+                    failures.increment();
+                    log.warn("Session revocation subscription failed, resubscribing: {}", signal.failure().getMessage());
+                }))
+            .subscribe();
+
+        resyncTask = Flux.interval(jwt.getSessionRevocationResyncInterval())
+            .onBackpressureDrop()
+            .concatMap(tick -> loadSnapshot()
+                .onErrorResume(e -> {
+                    failures.increment();
+                    log.warn("Failed to read session revocation snapshot: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then(Mono.fromRunnable(this::pruneExpired)), 1)
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (resyncTask != null) {
+            resyncTask.dispose();
+        }
+    }
+
+    /**
+     * Whether the token's session was revoked, or the token was issued before its user's
+     * latest revocation epoch. Epochs are whole seconds like {@code iat}, so a token issued
+     * in the same second as the revocation, such as the re-login right after it, is kept.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        if (!enabled) {
+            return false;
+        }
+        if (token.sessionId() != null && revokedSessions.containsKey(token.sessionId())) {
+            return true;
+        }
+        if (token.userId() == null) {
+            return false;
+        }
+        Long epoch = userEpochs.get(token.userId());
+        return epoch != null && token.issuedAt() < epoch;
+    }
+
+    private Mono<Void> loadSnapshot() {
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        Range<Double> retained = Range.rightUnbounded(Range.Bound.inclusive((double) retainedSince()));
+
+        Mono<Void> sessions = redisTemplate.opsForZSet()
+            .rangeByScoreWithScores(jwt.getRevokedSessionsKey(), retained)
+            .doOnNext(entry -> merge(revokedSessions, entry))
+            .then();
+        Mono<Void> users = redisTemplate.opsForZSet()
+            .rangeByScoreWithScores(jwt.getUserRevocationEpochsKey(), retained)
+            .doOnNext(entry -> merge(userEpochs, entry))
+            .then();
+        return Mono.when(sessions, users);
+    }
+
+    private static void merge(Map<String, Long> target, TypedTuple<String> entry) {
+        if (entry.getValue() != null && entry.getScore() != null) {
+            target.merge(entry.getValue(), entry.getScore().longValue(), Math::max);
+        }
+    }
+
+    // Messages are "session:<id>:<millis>" or "user:<id>:<millis>".
+    private void apply(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        long revokedAt;
+        try {
+            revokedAt = Long.parseLong(message, separator + 1, message.length(), 10);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed session revocation message: {}", message);
+            return;
+        }
+
+        if (message.startsWith(SESSION_PREFIX)) {
+            revokedSessions.merge(message.substring(SESSION_PREFIX.length(), separator), revokedAt, Math::max);
+        } else if (message.startsWith(USER_PREFIX)) {
+            userEpochs.merge(message.substring(USER_PREFIX.length(), separator), revokedAt, Math::max);
+        }
+    }
+
+    // Tokens issued before the retention window have expired, so older entries can go.
+    private void pruneExpired() {
+        long retainedSince = retainedSince();
+        revokedSessions.values().removeIf(revokedAt -> revokedAt < retainedSince);
+        userEpochs.values().removeIf(epoch -> epoch < retainedSince);
+    }
+
+    private long retainedSince() {
+        return System.currentTimeMillis() - gatewayProperties.getJwt().getSessionRevocationRetention().toMillis();
+    }
+}
@@ -0,0 +1,20 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Raised when a token names a {@code kid} that is not in the locally cached JWKS.
+ */
+public class UnknownSigningKeyException extends JwtException {
+
+    private final String keyId;
+
+    public UnknownSigningKeyException(String keyId) {
+        super("Unknown signing key: " + keyId);
+        this.keyId = keyId;
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+}
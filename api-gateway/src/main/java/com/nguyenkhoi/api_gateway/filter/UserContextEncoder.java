@@ -0,0 +1,83 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+
+import io.jsonwebtoken.Claims;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the headers forwarded to downstream services from verified claims.
+ * <p>
+ * When {@code gateway.jwt.enable-context-header} is set, an additional
+ * {@code X-User-Context} header carries the same values as
+ * {@code base64url(json) + "." + base64url(HMAC-SHA256(json))} signed with
+ * {@code gateway.jwt.context-header-secret}, so a service can check one MAC and decode
+ * one small JSON object instead of re-verifying the access token.
+ */
+@Component
+public class UserContextEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final GatewayProperties gatewayProperties;
+    private final ObjectMapper objectMapper;
+
+    public UserContextEncoder(GatewayProperties gatewayProperties, ObjectMapper objectMapper) {
+        this.gatewayProperties = gatewayProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    public VerifiedToken encode(Claims claims) {
+        String userId = claims.getSubject();
+        String email = claims.get("email", String.class);
+        String sessionId = claims.get("session_id", String.class);
+
+        @SuppressWarnings("unchecked")
+        List<String> roleList = (List<String>) claims.get("roles");
+        String roles = roleList != null ? String.join(",", roleList) : "";
+
+        String context = null;
+        GatewayProperties.Jwt jwt = gatewayProperties.getJwt();
+        if (jwt.isEnableContextHeader() && StringUtils.hasText(jwt.getContextHeaderSecret())) {
+            context = signedContext(jwt.getContextHeaderSecret(), claims, userId, email, roleList, sessionId);
+        }
+
+        long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+
+        return new VerifiedToken(claims, claims.getId(), issuedAt, userId, email, roles, sessionId, context);
+    }
+
+    private String signedContext(String secret, Claims claims, String userId, String email,
+                                 List<String> roles, String sessionId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sub", userId);
+        payload.put("email", email);
+        payload.put("roles", roles != null ? roles : List.of());
+        payload.put("sid", sessionId);
+        if (claims.getExpiration() != null) {
+            payload.put("exp", claims.getExpiration().getTime() / 1000);
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return BASE64_URL.encodeToString(json) + "." + BASE64_URL.encodeToString(mac.doFinal(json));
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to encode user context header", e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Verified claims together with the user context headers derived from them. Instances are
+ * built once per token by {@link UserContextEncoder} and cached by {@link VerifiedTokenCache},
+ * so forwarding a request only copies precomputed values.
+ */
+public record VerifiedToken(Claims claims,
+                            String tokenId,
+                            long issuedAt,
+                            String userId,
+                            String email,
+                            String roles,
+                            String sessionId,
+                            String context) {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLES_HEADER = "X-User-Roles";
+    public static final String SESSION_ID_HEADER = "X-Session-Id";
+    public static final String USER_CONTEXT_HEADER = "X-User-Context";
+
+    /**
+     * Replaces any client-supplied user context headers with the verified values.
+     */
+    public void applyTo(HttpHeaders headers) {
+        setOrRemove(headers, USER_ID_HEADER, userId);
+        setOrRemove(headers, USER_EMAIL_HEADER, email);
+        setOrRemove(headers, USER_ROLES_HEADER, roles);
+        setOrRemove(headers, SESSION_ID_HEADER, sessionId);
+        setOrRemove(headers, USER_CONTEXT_HEADER, context);
+    }
+
+    private static void setOrRemove(HttpHeaders headers, String name, String value) {
+        if (value != null) {
+            headers.set(name, value);
+        } else {
+            headers.remove(name);
+        }
+    }
+}
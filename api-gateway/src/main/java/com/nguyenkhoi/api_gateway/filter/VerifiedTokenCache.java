@@ -0,0 +1,116 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.springframework.stereotype.Component;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified tokens placed in front of {@link JwtTokenValidator}, holding the
+ * claims together with the user context headers derived from them.
+ * Entries are keyed by the SHA-256 digest of the compact token, so raw bearer tokens are
+ * never retained, and each entry expires together with the token's {@code exp} claim.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final long MAX_TTL_NANOS = Duration.ofMinutes(15).toNanos();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final JwtTokenValidator jwtTokenValidator;
+    private final GatewayProperties gatewayProperties;
+    private final UserContextEncoder userContextEncoder;
+    private final Cache<TokenKey, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtTokenValidator jwtTokenValidator,
+                              UserContextEncoder userContextEncoder,
+                              GatewayProperties gatewayProperties,
+                              MeterRegistry meterRegistry) {
+        this.jwtTokenValidator = jwtTokenValidator;
+        this.userContextEncoder = userContextEncoder;
+        this.gatewayProperties = gatewayProperties;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(gatewayProperties.getJwt().getTokenCacheMaxSize())
+            .expireAfter(new ClaimsExpiry())
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.jwt.verified-tokens");
+    }
+
+    /**
+     * Returns the verified token, running the full signature verification only when no
+     * unexpired entry exists for it.
+     */
+    public Mono<VerifiedToken> validate(String token) {
+        if (!gatewayProperties.getJwt().isEnableTokenCache()) {
+            return jwtTokenValidator.validate(token).map(userContextEncoder::encode);
+        }
+        if (token == null || token.isEmpty()) {
+            return Mono.error(new JwtException("Token cannot be null or empty"));
+        }
+
+        TokenKey key = TokenKey.of(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return jwtTokenValidator.validate(token)
+            .map(userContextEncoder::encode)
+            .doOnNext(verified -> cache.put(key, verified));
+    }
+
+    private record TokenKey(long h0, long h1, long h2, long h3) {
+
+        static TokenKey of(String token) {
+            MessageDigest digest = SHA_256.get();
+            ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenKey(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+
+    private static final class ClaimsExpiry implements Expiry<TokenKey, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenKey key, VerifiedToken token, long currentTime) {
+            Date expiration = token.claims().getExpiration();
+            if (expiration == null) {
+                return MAX_TTL_NANOS;
+            }
+            long remainingMillis = expiration.getTime() - System.currentTimeMillis();
+            return Math.max(0, Math.min(MAX_TTL_NANOS, TimeUnit.MILLISECONDS.toNanos(remainingMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenKey key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenKey key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
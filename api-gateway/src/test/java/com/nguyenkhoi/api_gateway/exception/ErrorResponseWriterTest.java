@@ -0,0 +1,90 @@
+package com.nguyenkhoi.api_gateway.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter.ErrorType;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.RequestPath;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ErrorResponseWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void errorTypeWritesItsStatusAndMessage() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/posts"));
+        Instant before = Instant.now().minusMillis(1);
+
+        ErrorResponseWriter.write(exchange, ErrorType.INVALID_TOKEN).block();
+
+        MockServerHttpResponse response = exchange.getResponse();
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        String body = response.getBodyAsString().block();
+        assertThat(response.getHeaders().getContentLength())
+            .isEqualTo(body.getBytes(StandardCharsets.UTF_8).length);
+
+        JsonNode error = objectMapper.readTree(body).get("error");
+        assertThat(error.get("message").asText()).isEqualTo("Invalid JWT token");
+        assertThat(error.get("status").asInt()).isEqualTo(401);
+        assertThat(error.get("path").asText()).isEqualTo("/api/posts");
+        assertThat(Instant.parse(error.get("timestamp").asText())).isBetween(before, Instant.now());
+    }
+
+    @Test
+    void statusWithDedicatedTypeUsesItsMessage() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+        ErrorResponseWriter.write(exchange, HttpStatus.SERVICE_UNAVAILABLE).block();
+
+        JsonNode error = errorOf(exchange.getResponse());
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(error.get("message").asText()).isEqualTo(ErrorType.SERVICE_UNAVAILABLE.getMessage());
+    }
+
+    @Test
+    void otherStatusUsesTheDefaultMessage() throws Exception {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+        ErrorResponseWriter.write(exchange, HttpStatus.BAD_GATEWAY).block();
+
+        JsonNode error = errorOf(exchange.getResponse());
+        assertThat(error.get("status").asInt()).isEqualTo(502);
+        assertThat(error.get("message").asText()).isEqualTo("An error occurred while processing your request");
+    }
+
+    @Test
+    void pathIsEscapedAsJsonString() throws Exception {
+        String path = "/a\"b\\c\té ";
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        ServerHttpRequest request = mock(ServerHttpRequest.class);
+        when(request.getPath()).thenReturn(RequestPath.parse(path, null));
+        ServerWebExchange exchange = mock(ServerWebExchange.class);
+        when(exchange.getRequest()).thenReturn(request);
+        when(exchange.getResponse()).thenReturn(response);
+
+        ErrorResponseWriter.write(exchange, ErrorType.NOT_FOUND).block();
+
+        String body = response.getBodyAsString().block();
+        assertThat(body).contains("\\u00e9").doesNotContain("\t");
+        assertThat(errorOf(response).get("path").asText()).isEqualTo(path);
+    }
+
+    private JsonNode errorOf(MockServerHttpResponse response) throws Exception {
+        return objectMapper.readTree(response.getBodyAsString().block()).get("error");
+    }
+}
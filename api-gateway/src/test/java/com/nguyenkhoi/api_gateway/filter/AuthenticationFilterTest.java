@@ -0,0 +1,140 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter.ErrorType;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JwtTokenValidator validator;
+    private RevokedTokenRegistry revokedTokenRegistry;
+    private SessionRevocationRegistry sessionRevocationRegistry;
+    private GatewayFilterChain chain;
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        GatewayProperties properties = new GatewayProperties();
+        validator = mock(JwtTokenValidator.class);
+        revokedTokenRegistry = mock(RevokedTokenRegistry.class);
+        sessionRevocationRegistry = mock(SessionRevocationRegistry.class);
+        chain = mock(GatewayFilterChain.class);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(validator,
+            new UserContextEncoder(properties, objectMapper), properties, new SimpleMeterRegistry());
+        filter = new AuthenticationFilter(verifiedTokenCache, new OpenEndpointMatcher(properties),
+            revokedTokenRegistry, sessionRevocationRegistry).apply(new AuthenticationFilter.Config());
+    }
+
+    @Test
+    void cachedTokenPassesWithoutBeingParsedAgain() {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims()));
+
+        MockServerWebExchange first = exchange("a.b.c");
+        MockServerWebExchange second = exchange("a.b.c");
+        run(first);
+        run(second);
+
+        verify(validator, times(1)).validate("a.b.c");
+        ArgumentCaptor<ServerWebExchange> forwarded = ArgumentCaptor.forClass(ServerWebExchange.class);
+        verify(chain, times(2)).filter(forwarded.capture());
+        assertThat(forwarded.getAllValues())
+            .allSatisfy(exchange -> {
+                assertThat(exchange.getRequest().getHeaders().getFirst(VerifiedToken.USER_ID_HEADER)).isEqualTo("u1");
+                assertThat(exchange.getRequest().getHeaders().getFirst(VerifiedToken.SESSION_ID_HEADER)).isEqualTo("s1");
+            });
+        assertThat(second.<String>getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE)).isEqualTo("u1");
+    }
+
+    @Test
+    void revokedTokenIdIsRejectedEvenWhenCached() throws Exception {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims()));
+        run(exchange("a.b.c"));
+        when(revokedTokenRegistry.isRevoked("jti-1")).thenReturn(true);
+
+        MockServerWebExchange exchange = exchange("a.b.c");
+        run(exchange);
+
+        assertError(exchange, ErrorType.TOKEN_REVOKED);
+        verify(chain, times(1)).filter(any());
+        verify(validator, times(1)).validate("a.b.c");
+    }
+
+    @Test
+    void revokedSessionIsRejected() throws Exception {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims()));
+        when(sessionRevocationRegistry.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        MockServerWebExchange exchange = exchange("a.b.c");
+        run(exchange);
+
+        assertError(exchange, ErrorType.TOKEN_REVOKED);
+        verify(chain, never()).filter(any());
+    }
+
+    @Test
+    void fullVerificationPoolIsAnswered503() throws Exception {
+        when(validator.validate("a.b.c")).thenReturn(Mono.error(new RejectedExecutionException("queue full")));
+
+        MockServerWebExchange exchange = exchange("a.b.c");
+        run(exchange);
+
+        assertError(exchange, ErrorType.SERVICE_UNAVAILABLE);
+        verify(chain, never()).filter(any());
+    }
+
+    private void run(MockServerWebExchange exchange) {
+        filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+    }
+
+    private void assertError(MockServerWebExchange exchange, ErrorType type) throws Exception {
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(type.getStatus());
+        JsonNode error = objectMapper.readTree(exchange.getResponse().getBodyAsString().block()).get("error");
+        assertThat(error.get("message").asText()).isEqualTo(type.getMessage());
+        assertThat(error.get("status").asInt()).isEqualTo(type.getStatus().value());
+    }
+
+    private static MockServerWebExchange exchange(String token) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/posts")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    private static Claims claims() {
+        return Jwts.claims()
+            .subject("u1")
+            .id("jti-1")
+            .add("session_id", "s1")
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + 60_000))
+            .build();
+    }
+}
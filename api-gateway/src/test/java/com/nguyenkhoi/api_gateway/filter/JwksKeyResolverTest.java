@@ -0,0 +1,153 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.jsonwebtoken.JwsHeader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigInteger;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwksKeyResolverTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<Sinks.One<String>> responses = new ArrayList<>();
+    private GatewayProperties properties;
+    private JwksKeyResolver resolver;
+    private RSAPublicKey publicKey;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+
+        properties = new GatewayProperties();
+        properties.getJwt().setJwksUri("http://auth-service/.well-known/jwks.json");
+        properties.getJwt().setJwksMinRefetchInterval(Duration.ofMinutes(1));
+
+        // Each fetch waits for the test to answer it, so concurrent callers can be lined up first
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> {
+            fetches.incrementAndGet();
+            Sinks.One<String> response = Sinks.one();
+            responses.add(response);
+            return response.asMono().map(body -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+        });
+        resolver = new JwksKeyResolver(properties, new DefaultResourceLoader(), webClient);
+    }
+
+    @Test
+    void unknownKidIsReportedWithItsId() {
+        assertThatThrownBy(() -> resolver.locate(header("k1")))
+            .isInstanceOfSatisfying(UnknownSigningKeyException.class,
+                e -> assertThat(e.getKeyId()).isEqualTo("k1"));
+    }
+
+    @Test
+    void concurrentUnknownKidsShareOneFetch() {
+        Mono<Void> first = resolver.refreshForUnknownKey("k1");
+        Mono<Void> second = resolver.refreshForUnknownKey("k1");
+        Mono<Void> both = Mono.when(first, second).cache();
+        both.subscribe();
+
+        assertThat(fetches).hasValue(1);
+        responses.get(0).tryEmitValue(jwks("k1"));
+        both.block(Duration.ofSeconds(5));
+
+        assertThat(fetches).hasValue(1);
+        Key key = resolver.locate(header("k1"));
+        assertThat(key.getEncoded()).isEqualTo(publicKey.getEncoded());
+    }
+
+    @Test
+    void unknownKidWithinMinRefetchIntervalDoesNotFetchAgain() {
+        fetchAndAnswer("k1", jwks("k1"));
+
+        resolver.refreshForUnknownKey("k2").block(Duration.ofSeconds(5));
+
+        assertThat(fetches).hasValue(1);
+        assertThatThrownBy(() -> resolver.locate(header("k2"))).isInstanceOf(UnknownSigningKeyException.class);
+    }
+
+    @Test
+    void unknownKidAfterMinRefetchIntervalFetchesAgain() {
+        properties.getJwt().setJwksMinRefetchInterval(Duration.ZERO);
+        fetchAndAnswer("k1", jwks("k1"));
+
+        fetchAndAnswer("k2", jwks("k2"));
+
+        assertThat(fetches).hasValue(2);
+        assertThat(resolver.locate(header("k2"))).isNotNull();
+    }
+
+    @Test
+    void knownKidIsNotFetchedAgain() {
+        properties.getJwt().setJwksMinRefetchInterval(Duration.ZERO);
+        fetchAndAnswer("k1", jwks("k1"));
+
+        resolver.refreshForUnknownKey("k1").block(Duration.ofSeconds(5));
+
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void failedFetchKeepsPreviousKeys() {
+        properties.getJwt().setJwksMinRefetchInterval(Duration.ZERO);
+        fetchAndAnswer("k1", jwks("k1"));
+
+        fetchAndAnswer("k2", "not json");
+
+        assertThat(resolver.locate(header("k1"))).isNotNull();
+    }
+
+    private void fetchAndAnswer(String keyId, String body) {
+        Mono<Void> refresh = resolver.refreshForUnknownKey(keyId).cache();
+        refresh.subscribe();
+        responses.get(responses.size() - 1).tryEmitValue(body);
+        refresh.block(Duration.ofSeconds(5));
+    }
+
+    private String jwks(String keyId) {
+        return """
+            {"keys":[{"kty":"RSA","kid":"%s","use":"sig","alg":"RS256","n":"%s","e":"%s"}]}
+            """.formatted(keyId, base64Url(publicKey.getModulus()), base64Url(publicKey.getPublicExponent()));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static JwsHeader header(String keyId) {
+        JwsHeader header = mock(JwsHeader.class);
+        when(header.getKeyId()).thenReturn(keyId);
+        return header;
+    }
+}
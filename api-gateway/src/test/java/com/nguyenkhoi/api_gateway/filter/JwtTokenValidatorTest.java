@@ -0,0 +1,136 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.jsonwebtoken.IncorrectClaimException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenValidatorTest {
+
+    private GatewayProperties properties;
+    private KeyPair keyPair;
+    private JwtTokenValidator validator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        properties = new GatewayProperties();
+        properties.getJwt().setJwksUri("http://auth-service/.well-known/jwks.json");
+        validator = validator(Jwks.builder().key((RSAPublicKey) keyPair.getPublic()).id("k1").build());
+    }
+
+    @Test
+    void ecAndOkpKeysFromTheJwksVerifyTokensByKid() throws Exception {
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ecKeyPair = ecGenerator.generateKeyPair();
+        KeyPair edKeyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        JwtTokenValidator mixedValidator = validator(
+            Jwks.builder().key((RSAPublicKey) keyPair.getPublic()).id("k1").build(),
+            Jwks.builder().key((ECPublicKey) ecKeyPair.getPublic()).id("ec-1").build(),
+            Jwks.builder().octetKey(edKeyPair.getPublic()).id("ed-1").build());
+
+        String es256 = token("ec-1", ecKeyPair.getPrivate(), "auth-service", "social-media-platform");
+        String eddsa = token("ed-1", edKeyPair.getPrivate(), "auth-service", "social-media-platform");
+
+        assertThat(mixedValidator.validateToken(es256).getSubject()).isEqualTo("user-1");
+        assertThat(mixedValidator.validateToken(eddsa).getSubject()).isEqualTo("user-1");
+        assertThatThrownBy(() -> mixedValidator.validateToken(
+            token("ec-1", edKeyPair.getPrivate(), "auth-service", "social-media-platform")))
+            .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void parserIsReusedWhileIssuerAndAudienceAreUnchanged() {
+        Object before = ReflectionTestUtils.getField(validator, "parserHolder");
+
+        validator.validateToken(token("auth-service", "social-media-platform"));
+        validator.validateToken(token("auth-service", "social-media-platform"));
+
+        assertThat(ReflectionTestUtils.getField(validator, "parserHolder")).isSameAs(before);
+    }
+
+    @Test
+    void parserIsRebuiltWhenIssuerChanges() {
+        String token = token("auth-service", "social-media-platform");
+        validator.validateToken(token);
+
+        properties.getJwt().setIssuer("other-issuer");
+
+        assertThatThrownBy(() -> validator.validateToken(token)).isInstanceOf(IncorrectClaimException.class);
+        assertThat(validator.validateToken(token("other-issuer", "social-media-platform")).getIssuer())
+            .isEqualTo("other-issuer");
+    }
+
+    @Test
+    void parserIsRebuiltWhenAudienceChanges() {
+        String token = token("auth-service", "social-media-platform");
+        validator.validateToken(token);
+
+        properties.getJwt().setAudience("other-audience");
+
+        assertThatThrownBy(() -> validator.validateToken(token)).isInstanceOf(IncorrectClaimException.class);
+        assertThat(validator.validateToken(token("auth-service", "other-audience")).getAudience())
+            .containsExactly("other-audience");
+    }
+
+    private JwtTokenValidator validator(PublicJwk<?>... keys) {
+        String jwks = "{\"keys\":[" + Arrays.stream(keys).map(Jwks::json).collect(Collectors.joining(",")) + "]}";
+        WebClient.Builder webClient = WebClient.builder().exchangeFunction(request -> Mono.just(
+            ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(jwks)
+                .build()));
+        JwksKeyResolver resolver = new JwksKeyResolver(properties, new DefaultResourceLoader(), webClient);
+        resolver.refreshForUnknownKey(keys[0].getId()).block(Duration.ofSeconds(5));
+
+        return new JwtTokenValidator(properties, resolver,
+            new JwtVerificationScheduler(properties, new SimpleMeterRegistry()));
+    }
+
+    private String token(String issuer, String audience) {
+        return token("k1", keyPair.getPrivate(), issuer, audience);
+    }
+
+    private static String token(String keyId, PrivateKey signingKey, String issuer, String audience) {
+        return Jwts.builder()
+            .header().keyId(keyId).and()
+            .subject("user-1")
+            .issuer(issuer)
+            .audience().add(audience).and()
+            .expiration(Date.from(Instant.now().plus(Duration.ofMinutes(5))))
+            .signWith(signingKey)
+            .compact();
+    }
+}
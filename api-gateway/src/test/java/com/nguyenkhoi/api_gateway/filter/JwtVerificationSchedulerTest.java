@@ -0,0 +1,111 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtVerificationSchedulerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private GatewayProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtVerificationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayProperties();
+        properties.getJwt().setEnableVerificationOffload(true);
+        properties.getJwt().setVerificationThreads(1);
+        properties.getJwt().setVerificationQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new JwtVerificationScheduler(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void verificationRunsOnThePoolAndResumesElsewhere() {
+        String[] verifiedOn = new String[1];
+
+        String resumedOn = scheduler.offload(Mono.fromCallable(() -> verifiedOn[0] = Thread.currentThread().getName()))
+            .map(ignored -> Thread.currentThread().getName())
+            .block(Duration.ofSeconds(5));
+
+        assertThat(verifiedOn[0]).startsWith("jwt-verification-");
+        assertThat(resumedOn).doesNotStartWith("jwt-verification-");
+    }
+
+    @Test
+    void disabledOffloadVerifiesInline() {
+        properties.getJwt().setEnableVerificationOffload(false);
+
+        String verifiedOn = scheduler.offload(Mono.fromCallable(() -> Thread.currentThread().getName())).block();
+
+        assertThat(verifiedOn).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void fullQueueRejectsAndIsCounted() throws InterruptedException {
+        saturate();
+
+        assertThatThrownBy(() -> scheduler.offload(Mono.just("claims")).block(Duration.ofSeconds(5)))
+            .isInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.counter("gateway.jwt.verification.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedVerificationIsAnswered503() throws InterruptedException {
+        saturate();
+        VerifiedTokenCache verifiedTokenCache = mock(VerifiedTokenCache.class);
+        when(verifiedTokenCache.validate("a.b.c"))
+            .thenReturn(scheduler.offload(Mono.just(new VerifiedToken(null, "jti", 0, "u1", null, null, null, null))));
+        AuthenticationFilter filter = new AuthenticationFilter(verifiedTokenCache,
+            new OpenEndpointMatcher(properties), mock(RevokedTokenRegistry.class), mock(SessionRevocationRegistry.class));
+        GatewayFilterChain chain = mock(GatewayFilterChain.class);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/posts")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer a.b.c"));
+
+        filter.apply(new AuthenticationFilter.Config()).filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        verify(chain, never()).filter(any());
+    }
+
+    /**
+     * Occupies the single verification thread and the single queue slot.
+     */
+    private void saturate() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        scheduler.offload(Mono.fromCallable(() -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        })).subscribe();
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        scheduler.offload(Mono.just(true)).subscribe();
+    }
+}
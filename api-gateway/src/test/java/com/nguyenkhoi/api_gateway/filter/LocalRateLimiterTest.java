@@ -0,0 +1,133 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    private GatewayProperties properties;
+    private LocalRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayProperties();
+        limiter = new LocalRateLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void burstIsAdmittedThenNextRequestWaitsOneInterval() {
+        limit(60, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client")).isZero();
+        }
+        long waitNanos = limiter.tryAcquire("client");
+
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void burstDefaultsToThePerMinuteLimit() {
+        limit(5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client")).isZero();
+        }
+        assertThat(limiter.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        limit(60, 1);
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+
+    @Test
+    void tokenIsBackAfterOneEmissionInterval() throws InterruptedException {
+        limit(600, 1);
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+        Thread.sleep(Duration.ofMillis(150));
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+    }
+
+    @Test
+    void rejectedRequestDoesNotConsumeAToken() throws InterruptedException {
+        limit(600, 1);
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("client");
+        }
+        Thread.sleep(Duration.ofMillis(150));
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+    }
+
+    @Test
+    void onlyRefilledBucketsAreEvicted() throws InterruptedException {
+        limit(600, 1);
+        limiter.tryAcquire("idle");
+        Thread.sleep(Duration.ofMillis(150));
+        limiter.tryAcquire("busy");
+
+        limiter.evictIdle();
+
+        assertThat(limiter.size()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("busy")).isPositive();
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws Exception {
+        limit(1, 50);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int admitted = 0;
+                    for (int i = 0; i < 100; i++) {
+                        if (limiter.tryAcquire("client") == 0) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                }));
+            }
+            start.countDown();
+
+            int admitted = 0;
+            for (Future<Integer> result : results) {
+                admitted += result.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(admitted).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void limit(int perMinute, int burst) {
+        properties.getSecurity().setRateLimitPerMinute(perMinute);
+        properties.getSecurity().setRateLimitBurst(burst);
+    }
+}
@@ -0,0 +1,90 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenEndpointMatcherTest {
+
+    private final GatewayProperties properties = new GatewayProperties();
+
+    @Test
+    void entryOpensItsPathAndEverythingBelowIt() {
+        OpenEndpointMatcher matcher = matcher("/auth/login");
+
+        assertThat(matcher.isOpen("/auth/login")).isTrue();
+        assertThat(matcher.isOpen("/auth/login/")).isTrue();
+        assertThat(matcher.isOpen("/auth/login/otp")).isTrue();
+        assertThat(matcher.isOpen("/auth")).isFalse();
+    }
+
+    @Test
+    void segmentsMatchWholeNotByPrefix() {
+        OpenEndpointMatcher matcher = matcher("/auth/login");
+
+        assertThat(matcher.isOpen("/auth/login-admin")).isFalse();
+        assertThat(matcher.isOpen("/auth/loginx/otp")).isFalse();
+        assertThat(matcher.isOpen("/auth/log")).isFalse();
+        assertThat(matcher.isOpen("/authx/login")).isFalse();
+    }
+
+    @Test
+    void repeatedSlashesAreCollapsed() {
+        OpenEndpointMatcher matcher = matcher("/auth/login");
+
+        assertThat(matcher.isOpen("//auth//login")).isTrue();
+    }
+
+    @Test
+    void singleWildcardMatchesExactlyOneSegment() {
+        OpenEndpointMatcher matcher = matcher("/users/*/avatar");
+
+        assertThat(matcher.isOpen("/users/42/avatar")).isTrue();
+        assertThat(matcher.isOpen("/users/42/avatar/small")).isTrue();
+        assertThat(matcher.isOpen("/users/42/profile")).isFalse();
+        assertThat(matcher.isOpen("/users/avatar")).isFalse();
+    }
+
+    @Test
+    void multiWildcardMatchesEverythingBelow() {
+        OpenEndpointMatcher matcher = matcher("/public/**");
+
+        assertThat(matcher.isOpen("/public/a/b/c")).isTrue();
+        assertThat(matcher.isOpen("/publicity")).isFalse();
+    }
+
+    @Test
+    void literalAndWildcardBranchesAreBothTried() {
+        OpenEndpointMatcher matcher = matcher("/users/me/settings", "/users/*/avatar");
+
+        assertThat(matcher.isOpen("/users/me/avatar")).isTrue();
+        assertThat(matcher.isOpen("/users/me/settings")).isTrue();
+        assertThat(matcher.isOpen("/users/you/settings")).isFalse();
+    }
+
+    @Test
+    void replacedListIsRecompiled() {
+        OpenEndpointMatcher matcher = matcher("/auth/login");
+
+        properties.getSecurity().setOpenEndpoints(List.of("/health"));
+
+        assertThat(matcher.isOpen("/auth/login")).isFalse();
+        assertThat(matcher.isOpen("/health")).isTrue();
+    }
+
+    @Test
+    void emptyListOpensNothing() {
+        OpenEndpointMatcher matcher = matcher();
+
+        assertThat(matcher.isOpen("/")).isFalse();
+        assertThat(matcher.isOpen("/auth/login")).isFalse();
+    }
+
+    private OpenEndpointMatcher matcher(String... openEndpoints) {
+        properties.getSecurity().setOpenEndpoints(List.of(openEndpoints));
+        return new OpenEndpointMatcher(properties);
+    }
+}
@@ -0,0 +1,98 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the GCRA script against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisBucketRateLimiterScriptTest {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7.2").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private ReactiveStringRedisTemplate redisTemplate;
+    private GatewayProperties properties;
+    private RedisBucketRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+        properties = new GatewayProperties();
+        limiter = new RedisBucketRateLimiter(redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void burstIsAdmittedThenNextRequestWaitsOneInterval() {
+        limit(60, 3);
+        String key = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(key).block()).isZero();
+        }
+        Long waitNanos = limiter.tryAcquire(key).block();
+
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        limit(60, 1);
+        String key = UUID.randomUUID().toString();
+
+        assertThat(limiter.tryAcquire(key).block()).isZero();
+        assertThat(limiter.tryAcquire(key).block()).isPositive();
+        assertThat(limiter.tryAcquire(UUID.randomUUID().toString()).block()).isZero();
+    }
+
+    @Test
+    void tokenIsBackAfterOneEmissionInterval() throws InterruptedException {
+        limit(600, 1);
+        String key = UUID.randomUUID().toString();
+
+        assertThat(limiter.tryAcquire(key).block()).isZero();
+        Thread.sleep(Duration.ofMillis(150));
+
+        assertThat(limiter.tryAcquire(key).block()).isZero();
+    }
+
+    @Test
+    void bucketExpiresOnceFullyRefilled() {
+        limit(60, 3);
+        String key = UUID.randomUUID().toString();
+
+        limiter.tryAcquire(key).block();
+
+        Long ttlMillis = redisTemplate.getExpire("rate_limit:" + key).map(Duration::toMillis).block();
+        assertThat(ttlMillis).isPositive().isLessThanOrEqualTo(1000);
+    }
+
+    private void limit(int perMinute, int burst) {
+        properties.getSecurity().setRateLimitPerMinute(perMinute);
+        properties.getSecurity().setRateLimitBurst(burst);
+    }
+}
@@ -0,0 +1,68 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisBucketRateLimiterTest {
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private RedisBucketRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        GatewayProperties properties = new GatewayProperties();
+        properties.getSecurity().setRateLimitPerMinute(60);
+        properties.getSecurity().setRateLimitBurst(5);
+        limiter = new RedisBucketRateLimiter(redisTemplate, properties, meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scriptGetsPrefixedKeyAndIntervalsInMicroseconds() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(0L));
+
+        assertThat(limiter.tryAcquire("10.0.0.1").block()).isZero();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertThat(keys.getValue()).containsExactly("rate_limit:10.0.0.1");
+        assertThat(args.getValue()).containsExactly("1000000", "4000000");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waitIsConvertedToNanoseconds() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList())).thenReturn(Flux.just(250_000L));
+
+        assertThat(limiter.tryAcquire("client").block()).isEqualTo(250_000_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisFailureAdmitsAndIsCounted() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), anyList()))
+            .thenReturn(Flux.error(new IllegalStateException("down")));
+
+        assertThat(limiter.tryAcquire("client").block()).isZero();
+        assertThat(meterRegistry.counter("gateway.rate-limit.redis.failures").count()).isEqualTo(1);
+    }
+}
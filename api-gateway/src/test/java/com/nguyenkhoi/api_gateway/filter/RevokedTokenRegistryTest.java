@@ -0,0 +1,171 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.ReactiveStreamOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevokedTokenRegistryTest {
+
+    private static final String STREAM_KEY = "auth:access-token-revocations";
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private ReactiveStreamOperations<String, String, String> streamOperations;
+    private GatewayProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RevokedTokenRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        streamOperations = mock(ReactiveStreamOperations.class);
+        doReturn(streamOperations).when(redisTemplate).opsForStream();
+
+        properties = new GatewayProperties();
+        properties.getJwt().setEnableRevocationCheck(true);
+        properties.getJwt().setRevocationPollInterval(Duration.ofHours(1));
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new RevokedTokenRegistry(redisTemplate, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void unexpiredRevocationsAreReported() {
+        long exp = System.currentTimeMillis() + 60_000;
+        stream(List.of(record("1-0", "jti-1", exp), record("2-0", "jti-2", exp)));
+
+        registry.initialize();
+        awaitUntil(() -> registry.size() == 2);
+
+        assertThat(registry.isRevoked("jti-1")).isTrue();
+        assertThat(registry.isRevoked("jti-2")).isTrue();
+        assertThat(registry.isRevoked("jti-3")).isFalse();
+        assertThat(registry.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void expiredAndMalformedEntriesAreSkipped() {
+        long exp = System.currentTimeMillis() + 60_000;
+        stream(List.of(
+            record("1-0", "expired", System.currentTimeMillis() - 1000),
+            StreamRecords.newRecord().in(STREAM_KEY).withId(RecordId.of("2-0"))
+                .ofMap(Map.of("jti", "bad-exp", "exp", "soon")),
+            StreamRecords.newRecord().in(STREAM_KEY).withId(RecordId.of("3-0"))
+                .ofMap(Map.of("exp", Long.toString(exp))),
+            record("4-0", "valid", exp)));
+
+        registry.initialize();
+        awaitUntil(() -> registry.isRevoked("valid"));
+
+        assertThat(registry.size()).isEqualTo(1);
+        assertThat(registry.isRevoked("expired")).isFalse();
+        assertThat(registry.isRevoked("bad-exp")).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullBatchIsFollowedByReadFromLastId() {
+        long exp = System.currentTimeMillis() + 60_000;
+        List<MapRecord<String, String, String>> firstBatch = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            firstBatch.add(record(i + "-0", "jti-" + i, exp));
+        }
+        stream(firstBatch, List.of(record("1001-0", "jti-1001", exp)));
+
+        registry.initialize();
+        awaitUntil(() -> registry.size() == 1001);
+
+        ArgumentCaptor<StreamOffset<String>> offsets = ArgumentCaptor.forClass(StreamOffset.class);
+        verify(streamOperations, times(2)).read(any(StreamReadOptions.class), offsets.capture());
+        assertThat(offsets.getAllValues()).extracting(offset -> offset.getOffset().getOffset())
+            .containsExactly("0-0", "1000-0");
+        assertThat(registry.isRevoked("jti-1001")).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readFailureIsCountedAndRevokesNothing() {
+        when(streamOperations.read(any(StreamReadOptions.class), any(StreamOffset.class)))
+            .thenReturn(Flux.error(new IllegalStateException("down")));
+
+        registry.initialize();
+        awaitUntil(() -> meterRegistry.counter("gateway.jwt.revocation.sync.failures").count() == 1);
+
+        assertThat(registry.isRevoked("jti-1")).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void disabledRegistryNeverReads() {
+        properties.getJwt().setEnableRevocationCheck(false);
+
+        registry.initialize();
+
+        assertThat(registry.isRevoked("jti-1")).isFalse();
+        verify(streamOperations, never()).read(any(StreamReadOptions.class), any(StreamOffset.class));
+    }
+
+    /**
+     * Answers successive stream reads with the given batches, then with nothing.
+     */
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void stream(List<MapRecord<String, String, String>>... batches) {
+        List<Flux<MapRecord<String, String, String>>> responses = new ArrayList<>();
+        for (List<MapRecord<String, String, String>> batch : batches) {
+            responses.add(Flux.fromIterable(batch));
+        }
+        responses.add(Flux.empty());
+        var stubbing = when(streamOperations.read(any(StreamReadOptions.class), any(StreamOffset.class)));
+        for (Flux<MapRecord<String, String, String>> response : responses) {
+            stubbing = stubbing.thenReturn(response);
+        }
+    }
+
+    private static MapRecord<String, String, String> record(String id, String jti, long exp) {
+        return StreamRecords.newRecord().in(STREAM_KEY).withId(RecordId.of(id))
+            .ofMap(Map.of("jti", jti, "exp", Long.toString(exp)));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionRevocationRegistryTest {
+
+    private static final String CHANNEL = "auth:session-revocations";
+    private static final String SESSIONS_KEY = "auth:revoked-sessions";
+    private static final String USERS_KEY = "auth:user-revocation-epochs";
+
+    private final Sinks.Many<ReactiveSubscription.Message<String, String>> messages =
+        Sinks.many().multicast().directBestEffort();
+    private ReactiveStringRedisTemplate redisTemplate;
+    private ReactiveZSetOperations<String, String> zSetOperations;
+    private GatewayProperties properties;
+    private SessionRevocationRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        zSetOperations = mock(ReactiveZSetOperations.class);
+        doReturn(Mono.just(messages.asFlux())).when(redisTemplate).listenToChannelLater(CHANNEL);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScoreWithScores(any(), any())).thenReturn(Flux.empty());
+
+        properties = new GatewayProperties();
+        properties.getJwt().setEnableSessionRevocationCheck(true);
+        properties.getJwt().setSessionRevocationResyncInterval(Duration.ofHours(1));
+        registry = new SessionRevocationRegistry(redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void tokenIssuedInRevocationSecondIsKept() {
+        long epoch = wholeSecondNow();
+        registry.initialize();
+
+        publish("user:u1:" + epoch);
+
+        assertThat(registry.isRevoked(token("u1", null, epoch))).isFalse();
+        assertThat(registry.isRevoked(token("u1", null, epoch + 1000))).isFalse();
+        assertThat(registry.isRevoked(token("u1", null, epoch - 1000))).isTrue();
+    }
+
+    @Test
+    void userEpochOnlyAffectsThatUser() {
+        long epoch = wholeSecondNow();
+        registry.initialize();
+
+        publish("user:u1:" + epoch);
+
+        assertThat(registry.isRevoked(token("u2", null, epoch - 1000))).isFalse();
+    }
+
+    @Test
+    void revokedSessionIsRejectedWhateverItsIssueTime() {
+        long now = wholeSecondNow();
+        registry.initialize();
+
+        publish("session:s1:" + now);
+
+        assertThat(registry.isRevoked(token("u1", "s1", now + 60_000))).isTrue();
+        assertThat(registry.isRevoked(token("u1", "s2", now))).isFalse();
+    }
+
+    @Test
+    void laterMessageRaisesEpochButEarlierOneDoesNotLowerIt() {
+        long epoch = wholeSecondNow();
+        registry.initialize();
+
+        publish("user:u1:" + epoch);
+        publish("user:u1:" + (epoch - 5000));
+
+        assertThat(registry.isRevoked(token("u1", null, epoch - 1000))).isTrue();
+    }
+
+    @Test
+    void snapshotIsAppliedOnSubscribe() {
+        long epoch = wholeSecondNow();
+        when(zSetOperations.rangeByScoreWithScores(eq(USERS_KEY), any()))
+            .thenReturn(Flux.just(TypedTuple.of("u1", (double) epoch)));
+        when(zSetOperations.rangeByScoreWithScores(eq(SESSIONS_KEY), any()))
+            .thenReturn(Flux.just(TypedTuple.of("s1", (double) epoch)));
+
+        registry.initialize();
+
+        assertThat(registry.isRevoked(token("u1", null, epoch - 1000))).isTrue();
+        assertThat(registry.isRevoked(token("u2", "s1", epoch))).isTrue();
+    }
+
+    @Test
+    void malformedMessagesAreIgnored() {
+        long now = wholeSecondNow();
+        registry.initialize();
+
+        publish("user:u1");
+        publish("user:u1:not-a-number");
+        publish("other:u1:" + now);
+
+        assertThat(registry.isRevoked(token("u1", null, 0))).isFalse();
+    }
+
+    @Test
+    void disabledRegistryRevokesNothing() {
+        properties.getJwt().setEnableSessionRevocationCheck(false);
+        registry.initialize();
+
+        publish("user:u1:" + wholeSecondNow());
+
+        assertThat(registry.isRevoked(token("u1", null, 0))).isFalse();
+    }
+
+    private void publish(String message) {
+        messages.tryEmitNext(new ReactiveSubscription.ChannelMessage<>(CHANNEL, message));
+    }
+
+    private static long wholeSecondNow() {
+        return System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    private static VerifiedToken token(String userId, String sessionId, long issuedAt) {
+        return new VerifiedToken(null, "jti", issuedAt, userId, null, null, sessionId, null);
+    }
+}
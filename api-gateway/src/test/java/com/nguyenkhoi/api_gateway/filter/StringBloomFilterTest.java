@@ -0,0 +1,59 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringBloomFilterTest {
+
+    @Test
+    void insertedValuesAreAlwaysFound() {
+        StringBloomFilter filter = new StringBloomFilter(10_000, 0.01);
+        String[] values = new String[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.put(values[i]);
+        }
+
+        for (String value : values) {
+            assertThat(filter.mightContain(value)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtCapacity() {
+        StringBloomFilter filter = new StringBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        StringBloomFilter filter = new StringBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("jti")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+
+    @Test
+    void capacityIsAtLeastOne() {
+        StringBloomFilter filter = new StringBloomFilter(0, 0.01);
+        filter.put("jti");
+
+        assertThat(filter.capacity()).isEqualTo(1);
+        assertThat(filter.mightContain("jti")).isTrue();
+    }
+}
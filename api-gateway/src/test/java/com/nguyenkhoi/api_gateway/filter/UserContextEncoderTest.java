@@ -0,0 +1,113 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserContextEncoderTest {
+
+    private static final String SECRET = "context-secret";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GatewayProperties properties;
+    private UserContextEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GatewayProperties();
+        properties.getJwt().setEnableContextHeader(true);
+        properties.getJwt().setContextHeaderSecret(SECRET);
+        encoder = new UserContextEncoder(properties, objectMapper);
+    }
+
+    @Test
+    void claimsAreCopiedToHeaderValues() {
+        VerifiedToken token = encoder.encode(claims());
+
+        assertThat(token.userId()).isEqualTo("u1");
+        assertThat(token.tokenId()).isEqualTo("jti-1");
+        assertThat(token.email()).isEqualTo("u1@example.com");
+        assertThat(token.roles()).isEqualTo("USER,ADMIN");
+        assertThat(token.sessionId()).isEqualTo("s1");
+        assertThat(token.issuedAt()).isEqualTo(1_700_000_000_000L);
+    }
+
+    @Test
+    void contextIsSignedWithHmacSha256OverTheJson() throws Exception {
+        String[] parts = encoder.encode(claims()).context().split("\\.");
+
+        assertThat(parts).hasSize(2);
+        byte[] json = Base64.getUrlDecoder().decode(parts[0]);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        assertThat(Base64.getUrlDecoder().decode(parts[1])).isEqualTo(mac.doFinal(json));
+        assertThat(parts[0] + parts[1]).doesNotContain("=");
+
+        JsonNode payload = objectMapper.readTree(json);
+        assertThat(payload.get("sub").asText()).isEqualTo("u1");
+        assertThat(payload.get("email").asText()).isEqualTo("u1@example.com");
+        assertThat(payload.get("roles")).extracting(JsonNode::asText).containsExactly("USER", "ADMIN");
+        assertThat(payload.get("sid").asText()).isEqualTo("s1");
+        assertThat(payload.get("exp").asLong()).isEqualTo(1_700_000_900L);
+    }
+
+    @Test
+    void differentSecretGivesDifferentSignature() {
+        String first = encoder.encode(claims()).context();
+        properties.getJwt().setContextHeaderSecret("other-secret");
+
+        String second = encoder.encode(claims()).context();
+
+        assertThat(second.substring(0, second.indexOf('.'))).isEqualTo(first.substring(0, first.indexOf('.')));
+        assertThat(second).isNotEqualTo(first);
+    }
+
+    @Test
+    void noContextWhenDisabledOrWithoutSecret() {
+        properties.getJwt().setEnableContextHeader(false);
+        assertThat(encoder.encode(claims()).context()).isNull();
+
+        properties.getJwt().setEnableContextHeader(true);
+        properties.getJwt().setContextHeaderSecret(" ");
+        assertThat(encoder.encode(claims()).context()).isNull();
+    }
+
+    @Test
+    void missingRolesBecomeEmpty() throws Exception {
+        Claims claims = Jwts.claims().subject("u1").build();
+
+        VerifiedToken token = encoder.encode(claims);
+
+        assertThat(token.roles()).isEmpty();
+        assertThat(token.issuedAt()).isZero();
+        JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(token.context().split("\\.")[0]));
+        assertThat(payload.get("roles").isArray()).isTrue();
+        assertThat(payload.get("roles")).isEmpty();
+        assertThat(payload.has("exp")).isFalse();
+    }
+
+    private static Claims claims() {
+        return Jwts.claims()
+            .subject("u1")
+            .id("jti-1")
+            .issuedAt(new Date(1_700_000_000_000L))
+            .expiration(new Date(1_700_000_900_000L))
+            .add("email", "u1@example.com")
+            .add("roles", List.of("USER", "ADMIN"))
+            .add("session_id", "s1")
+            .build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.nguyenkhoi.api_gateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VerifiedTokenCacheTest {
+
+    private JwtTokenValidator validator;
+    private GatewayProperties properties;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        validator = mock(JwtTokenValidator.class);
+        properties = new GatewayProperties();
+        cache = new VerifiedTokenCache(validator, new UserContextEncoder(properties, new ObjectMapper()),
+            properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims("u1", 60_000)));
+
+        VerifiedToken first = cache.validate("a.b.c").block();
+        VerifiedToken second = cache.validate("a.b.c").block();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.userId()).isEqualTo("u1");
+        verify(validator, times(1)).validate("a.b.c");
+    }
+
+    @Test
+    void entriesAreKeyedByTheWholeToken() {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims("u1", 60_000)));
+        when(validator.validate("a.b.d")).thenReturn(Mono.just(claims("u2", 60_000)));
+
+        assertThat(cache.validate("a.b.c").block().userId()).isEqualTo("u1");
+        assertThat(cache.validate("a.b.d").block().userId()).isEqualTo("u2");
+        assertThat(cache.validate("a.b.c").block().userId()).isEqualTo("u1");
+
+        verify(validator, times(1)).validate("a.b.c");
+        verify(validator, times(1)).validate("a.b.d");
+    }
+
+    @Test
+    void entryExpiresWithTheToken() throws InterruptedException {
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims("u1", 50)));
+
+        cache.validate("a.b.c").block();
+        Thread.sleep(100);
+        cache.validate("a.b.c").block();
+
+        verify(validator, times(2)).validate("a.b.c");
+    }
+
+    @Test
+    void failedVerificationIsNotCached() {
+        when(validator.validate("a.b.c"))
+            .thenReturn(Mono.error(new JwtException("bad signature")))
+            .thenReturn(Mono.just(claims("u1", 60_000)));
+
+        assertThatThrownBy(() -> cache.validate("a.b.c").block()).isInstanceOf(JwtException.class);
+        assertThat(cache.validate("a.b.c").block().userId()).isEqualTo("u1");
+    }
+
+    @Test
+    void emptyTokenIsRejectedWithoutVerification() {
+        assertThatThrownBy(() -> cache.validate("").block()).isInstanceOf(JwtException.class);
+
+        verify(validator, never()).validate(anyString());
+    }
+
+    @Test
+    void disabledCacheVerifiesEveryTime() {
+        properties.getJwt().setEnableTokenCache(false);
+        when(validator.validate("a.b.c")).thenReturn(Mono.just(claims("u1", 60_000)));
+
+        cache.validate("a.b.c").block();
+        cache.validate("a.b.c").block();
+
+        verify(validator, times(2)).validate("a.b.c");
+    }
+
+    private static Claims claims(String subject, long expiresInMillis) {
+        return Jwts.claims()
+            .subject(subject)
+            .issuedAt(new Date())
+            .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+            .build();
+    }
+}
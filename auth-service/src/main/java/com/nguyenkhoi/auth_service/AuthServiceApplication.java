@@ -3,9 +3,11 @@ package com.nguyenkhoi.auth_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.nguyenkhoi.auth_service.repository")
+@EnableScheduling
 public class AuthServiceApplication {
 
 	public static void main(String[] args) {
@@ -1,7 +1,6 @@
 package com.nguyenkhoi.auth_service.config;
 
 import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
 import com.nguyenkhoi.auth_service.exception.AppException;
@@ -81,15 +80,14 @@ public class AuthorizationServerConfig {
     }
 
     @Bean
-    public JWKSource<SecurityContext> jwkSource(RSAKey rsaKey) {
-        if (rsaKey == null) {
+    public JWKSource<SecurityContext> jwkSource(JWKSet jwtKeySet) {
+        if (jwtKeySet == null || jwtKeySet.isEmpty()) {
             throw new AppException(
                 ErrorCode.JWT_EXCEPTION,
-                "RSAKey bean not found"
+                "JWT key set not found"
             );
         }
-        JWKSet jwkSet = new JWKSet(rsaKey);
-        return (jwkSelector, securityContext) -> jwkSelector.select(jwkSet);
+        return (jwkSelector, securityContext) -> jwkSelector.select(jwtKeySet);
     }
 
     @Bean
@@ -1,5 +1,8 @@
 package com.nguyenkhoi.auth_service.config;
-import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nguyenkhoi.auth_service.exception.AppException;
 import com.nguyenkhoi.auth_service.exception.ErrorCode;
@@ -12,13 +15,28 @@ import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.RSAPublicKeySpec;
 import java.math.BigInteger;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
+import com.nguyenkhoi.auth_service.utils.JwkUtils;
 import com.nguyenkhoi.auth_service.utils.PemUtils;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Loads the access-token signing key and the public key set published at
+ * {@code /.well-known/jwks.json}.
+ * <p>
+ * {@code jwt.key.private-path} is either an RSA PKCS#8 PEM (RS256, as before) or a private
+ * JWK in JSON form, which is how ES256 (P-256) and EdDSA (Ed25519) keys are supplied.
+ * {@code jwt.key.verification-paths} lists JWK or JWK set files whose public keys are still
+ * accepted and published, so tokens signed with the previous key, possibly of another
+ * algorithm, stay valid while an algorithm migration rolls out.
+ */
 @Configuration
 public class JwtKeyConfig {
 
@@ -28,18 +46,95 @@ public class JwtKeyConfig {
     @Value("${jwt.key.private-path}")
     private String privateKeyPath;
 
+    @Value("${jwt.key.algorithm:RS256}")
+    private String algorithm;
+
+    @Value("${jwt.key.id:auth-service-rsa-1}")
+    private String keyId;
+
+    @Value("${jwt.key.verification-paths:}")
+    private List<String> verificationKeyPaths;
+
+    @Bean
+    public JWK jwtSigningKey() {
+        String content = loadKeyFromPath(privateKeyPath);
+        JWK jwk = content.trim().startsWith("{") ? parseJwk(content) : rsaKeyFromPem(content);
+
+        JWSAlgorithm expected = JWSAlgorithm.parse(algorithm);
+        JWSAlgorithm actual = JwkUtils.algorithmFor(jwk);
+        if (!expected.equals(actual)) {
+            throw new AppException(ErrorCode.JWT_EXCEPTION,
+                    "Configured JWT algorithm " + expected + " does not match the " + actual + " signing key");
+        }
+        if (!jwk.isPrivate()) {
+            throw new AppException(ErrorCode.JWT_EXCEPTION, "JWT signing key has no private part");
+        }
+
+        try {
+            return JWK.parse(withMetadata(jwk.toJSONObject(), jwk.getKeyID() != null ? jwk.getKeyID() : keyId, actual));
+        } catch (ParseException e) {
+            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to build JWT signing key");
+        }
+    }
+
+    /**
+     * The signing key followed by the verification-only keys. Contains private material;
+     * publish it through {@link JWKSet#toPublicJWKSet()}.
+     */
     @Bean
-    public RSAKey rsaKey() {
-        String privateKeyPem = loadPrivateKeyFromPath(privateKeyPath);
-        RSAPrivateKey privateKey = PemUtils.parseRSAPrivateKey(privateKeyPem);
+    public JWKSet jwtKeySet(JWK jwtSigningKey) {
+        List<JWK> keys = new ArrayList<>();
+        keys.add(jwtSigningKey);
+
+        for (String path : verificationKeyPaths) {
+            if (path == null || path.isBlank()) {
+                continue;
+            }
+            String content = loadKeyFromPath(path.trim());
+            try {
+                List<JWK> parsed = content.contains("\"keys\"")
+                        ? JWKSet.parse(content).getKeys()
+                        : List.of(JWK.parse(content));
+                for (JWK jwk : parsed) {
+                    if (jwk.getKeyID() == null) {
+                        throw new AppException(ErrorCode.JWT_EXCEPTION, "Verification key in " + path + " has no kid");
+                    }
+                    JwkUtils.algorithmFor(jwk);
+                    keys.add(jwk.toPublicJWK());
+                }
+            } catch (ParseException e) {
+                throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to parse verification key from path: " + path);
+            }
+        }
+
+        return new JWKSet(keys);
+    }
+
+    private JWK parseJwk(String json) {
+        try {
+            return JWK.parse(json);
+        } catch (ParseException e) {
+            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to parse JWT signing key JWK");
+        }
+    }
+
+    private RSAKey rsaKeyFromPem(String pem) {
+        RSAPrivateKey privateKey = PemUtils.parseRSAPrivateKey(pem);
         RSAPublicKey publicKey = derivePublicKey(privateKey);
 
         return new RSAKey.Builder(publicKey)
                 .privateKey(privateKey)
-                .keyID("auth-service-rsa-1")
+                .keyID(keyId)
                 .build();
     }
 
+    private static Map<String, Object> withMetadata(Map<String, Object> json, String kid, JWSAlgorithm alg) {
+        json.put("kid", kid);
+        json.put("alg", alg.getName());
+        json.put("use", KeyUse.SIGNATURE.getValue());
+        return json;
+    }
+
     private RSAPublicKey derivePublicKey(RSAPrivateKey privateKey) {
         try {
             return (RSAPublicKey) KeyFactory.getInstance("RSA")
@@ -52,30 +147,12 @@ public class JwtKeyConfig {
         }
     }
 
-     @Bean
-    public RSAPublicKey jwtValidationKey(RSAKey rsaKey) {
-        try {
-            return rsaKey.toRSAPublicKey();
-        } catch (JOSEException e) {
-            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to extract RSA public key from RSAKey");
-        }
-    }
-
-    @Bean
-    public RSAPrivateKey jwtSigningKey(RSAKey rsaKey) {
-        try {
-            return rsaKey.toRSAPrivateKey();
-        } catch (JOSEException e) {
-            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to extract RSA private key from RSAKey");
-        }
-    }
-
-    private String loadPrivateKeyFromPath(String keyPath) {
+    private String loadKeyFromPath(String keyPath) {
         try {
             Resource resource = resourceLoader.getResource(keyPath);
             return new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         } catch (Exception e) {
-            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to load private key from path: " + keyPath);
+            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to load key from path: " + keyPath);
         }
     }
 }
@@ -5,6 +5,10 @@ import com.nguyenkhoi.auth_service.dto.request.LoginRequest;
 import com.nguyenkhoi.auth_service.dto.request.RefreshTokenRequest;
 import com.nguyenkhoi.auth_service.dto.request.RegisterRequest;
 import com.nguyenkhoi.auth_service.dto.response.AuthResponse;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.exception.AppException;
+import com.nguyenkhoi.auth_service.exception.ErrorCode;
+import com.nguyenkhoi.auth_service.service.AccessTokenRevocationService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +26,7 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
 public class AuthController {
 
+    private final AccessTokenRevocationService accessTokenRevocationService;
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
@@ -92,10 +97,12 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String authHeader) {
         log.info("Logout attempt");
-        
-        // TODO: Implement actual logout logic
-        // authService.logout(authHeader);
-        
+
+        if (!authHeader.startsWith("Bearer ")) {
+            throw new AppException(ErrorCode.INVALID_TOKEN);
+        }
+        accessTokenRevocationService.revoke(authHeader.substring(7), RevocationReason.LOGOUT);
+
         return ResponseEntity.ok(ApiResponse.success("Logout successful", null));
     }
 
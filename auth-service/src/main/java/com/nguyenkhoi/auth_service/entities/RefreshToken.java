@@ -20,7 +20,7 @@ import java.time.Instant;
 @Table(name = "refresh_token", indexes = {
     @Index(name = "idx_refresh_token_chain", columnList = "chain_id"),
     @Index(name = "idx_refresh_token_user", columnList = "user_id"),
-    @Index(name = "idx_refresh_token_token", columnList = "token")
+    @Index(name = "idx_refresh_token_expiry", columnList = "expiry_at")
 })
 public class RefreshToken {
     @Id
@@ -38,8 +38,10 @@ public class RefreshToken {
     @JoinColumn(name = "session_id")
     private UserSession session;
 
-    @Column(name = "token", nullable = false, unique = true, length = 255)
-    private String token;
+    // SHA-256 of the token identifier; the raw identifier is only ever handed to the client.
+    // The unique index on it includes revoked, expiry_at, user_id, chain_id and session_id.
+    @Column(name = "token_hash", nullable = false, unique = true, length = 32)
+    private byte[] tokenHash;
 
     @Column(name = "chain_id", nullable = false, length = 255)
     private String chainId;
@@ -55,8 +57,8 @@ public class RefreshToken {
     @Column(name = "revoked", nullable = false)
     private Boolean revoked = false;
 
-    @Column(name = "replaced_by", length = 255)
-    private String replacedBy;
+    @Column(name = "replaced_by_hash", length = 32)
+    private byte[] replacedByHash;
 
     @Column(name = "ip_address", length = 45)
     private String ipAddress;
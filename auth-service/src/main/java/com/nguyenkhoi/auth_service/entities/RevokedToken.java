@@ -17,9 +17,11 @@ import java.time.Instant;
 @AllArgsConstructor
 @Entity
 @Table(name = "revoked_token", indexes = {
-    @Index(name = "idx_revoked_chain", columnList = "chain_id"),
-    @Index(name = "idx_revoked_user", columnList = "user_id"),
-    @Index(name = "idx_revoked_expiry", columnList = "expiry_at")
+    @Index(name = "idx_revoked_chain_revoked_at", columnList = "chain_id, revoked_at DESC"),
+    @Index(name = "idx_revoked_user_revoked_at", columnList = "user_id, revoked_at DESC"),
+    @Index(name = "idx_revoked_expiry", columnList = "expiry_at"),
+    @Index(name = "idx_revoked_revoked_at", columnList = "revoked_at"),
+    @Index(name = "idx_revoked_reason", columnList = "revocation_reason, revoked_at DESC")
 })
 public class RevokedToken {
     @Id
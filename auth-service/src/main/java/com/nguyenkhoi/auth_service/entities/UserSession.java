@@ -20,8 +20,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Entity
 @Table(name = "user_session", indexes = {
-    @Index(name = "idx_session_user", columnList = "user_id"),
-    @Index(name = "idx_session_active", columnList = "last_active")
+    @Index(name = "idx_session_user", columnList = "user_id")
 })
 public class UserSession {
     @Id
@@ -57,8 +56,9 @@ public class UserSession {
     @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<RefreshToken> refreshTokens;
 
+    // Set once on creation; later activity is written by SessionActivityBuffer, so saving a
+    // session for another reason, such as revoking it, does not count as activity.
     @PrePersist
-    @PreUpdate
     public void updateLastActive() {
         this.lastActive = Instant.now();
     }
@@ -3,12 +3,15 @@ package com.nguyenkhoi.auth_service.mapper;
 import com.nguyenkhoi.auth_service.dto.response.TokenResponse;
 import com.nguyenkhoi.auth_service.entities.RefreshToken;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface TokenMapper {
     
+    // Only the hash is stored; callers set the raw identifier they generated.
+    @Mapping(target = "token", ignore = true)
     TokenResponse toResponse(RefreshToken token);
     
     List<TokenResponse> toResponseList(List<RefreshToken> tokens);
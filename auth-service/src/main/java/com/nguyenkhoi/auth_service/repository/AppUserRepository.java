@@ -31,4 +31,30 @@ public interface AppUserRepository extends JpaRepository<AppUser, UUID> {
     
     @Query("SELECT u FROM AppUser u LEFT JOIN FETCH u.roles WHERE u.email = :email")
     Optional<AppUser> findByEmailWithRoles(@Param("email") String email);
+
+    /**
+     * The user whose username, or failing that whose email, equals the login, with their
+     * role ids, in one statement over the two unique indexes and {@code idx_user_roles_user}.
+     * An unknown login costs two index probes.
+     */
+    @Query(value = """
+            SELECT u.id, u.username, u.email, u.password, u.is_enabled AS enabled, u.is_locked AS locked,
+                   (SELECT string_agg(ur.role_id::text, ',') FROM user_roles ur WHERE ur.user_id = u.id) AS roleIds
+            FROM app_user u
+            WHERE u.username = :login OR u.email = :login
+            ORDER BY u.username = :login DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<LoginCredentials> findCredentialsByLogin(@Param("login") String login);
+
+    interface LoginCredentials {
+        UUID getId();
+        String getUsername();
+        String getEmail();
+        String getPassword();
+        boolean isEnabled();
+        boolean isLocked();
+        /** Comma-separated {@code user_role} ids, or {@code null} when the user has none. */
+        String getRoleIds();
+    }
 }
\ No newline at end of file
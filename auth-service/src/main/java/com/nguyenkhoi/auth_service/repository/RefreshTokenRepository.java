@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -16,7 +17,16 @@ import java.util.UUID;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    /**
+     * Validation state of a token, reading only columns held by the covering unique index on
+     * {@code token_hash}, so PostgreSQL can answer it with an index-only scan.
+     */
+    @Query("SELECT rt.user.id AS userId, rt.session.id AS sessionId, rt.chainId AS chainId, " +
+           "rt.revoked AS revoked, rt.expiryAt AS expiryAt " +
+           "FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash")
+    Optional<TokenState> findStateByTokenHash(@Param("tokenHash") byte[] tokenHash);
     
     List<RefreshToken> findByChainId(String chainId);
     
@@ -31,17 +41,96 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     List<RefreshToken> findActiveTokensByUserId(@Param("userId") UUID userId);
     
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.chainId = :chainId")
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.chainId = :chainId AND rt.revoked = false")
     int revokeTokensByChainId(@Param("chainId") String chainId);
     
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user.id = :userId")
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user.id = :userId AND rt.revoked = false")
     int revokeAllUserTokens(@Param("userId") UUID userId);
     
+    /**
+     * Deletes at most {@code batchSize} tokens that expired before {@code now}, oldest first,
+     * skipping rows locked by concurrent rotations. Each call commits on its own so the
+     * expired-token reaper never holds locks across batches.
+     */
+    @Transactional
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryAt < :now")
-    int deleteExpiredTokens(@Param("now") Instant now);
+    @Query(value = """
+            DELETE FROM refresh_token
+            WHERE id IN (
+                SELECT id FROM refresh_token
+                WHERE expiry_at < :now
+                ORDER BY expiry_at
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int deleteExpiredTokens(@Param("now") Instant now, @Param("batchSize") int batchSize);
     
     @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.user.id = :userId AND rt.revoked = false")
     long countActiveTokensByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Revokes all but the {@code keep} most recently issued active tokens of the user in one
+     * statement, ranking them with a window function instead of loading them, and returns the
+     * hashes of the tokens it revoked.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE refresh_token SET revoked = true
+            WHERE id IN (
+                SELECT id FROM (
+                    SELECT id, row_number() OVER (ORDER BY issued_at DESC, id DESC) AS rn
+                    FROM refresh_token
+                    WHERE user_id = :userId AND revoked = false
+                ) ranked
+                WHERE ranked.rn > :keep
+            )
+            RETURNING token_hash
+            """, nativeQuery = true)
+    List<byte[]> revokeExcessActiveTokens(@Param("userId") UUID userId, @Param("keep") int keep);
+
+    /**
+     * Compare-and-set rotation: marks the token revoked and replaced by {@code successorHash}
+     * only if it is still active and unexpired, and reports the outcome in the same round
+     * trip. Returns no row when the token does not exist. Of two concurrent rotations of
+     * one token, the second re-checks {@code revoked} after the first commits and comes
+     * back with {@code rotated = false}.
+     */
+    @Transactional
+    @Query(value = """
+            WITH candidate AS (
+                SELECT id, user_id, session_id, chain_id, expiry_at <= :now AS expired
+                FROM refresh_token
+                WHERE token_hash = :tokenHash
+            ), rotated AS (
+                UPDATE refresh_token rt SET revoked = true, replaced_by_hash = :successorHash
+                FROM candidate c
+                WHERE rt.id = c.id AND rt.revoked = false AND NOT c.expired
+                RETURNING rt.id
+            )
+            SELECT c.id AS id, c.user_id AS userId, c.session_id AS sessionId, c.chain_id AS chainId,
+                   c.expired AS expired, EXISTS (SELECT 1 FROM rotated) AS rotated
+            FROM candidate c
+            """, nativeQuery = true)
+    Optional<RotationResult> rotateToken(@Param("tokenHash") byte[] tokenHash,
+                                         @Param("successorHash") byte[] successorHash,
+                                         @Param("now") Instant now);
+
+    interface TokenState {
+        UUID getUserId();
+        UUID getSessionId();
+        String getChainId();
+        boolean isRevoked();
+        Instant getExpiryAt();
+    }
+
+    interface RotationResult {
+        Long getId();
+        UUID getUserId();
+        UUID getSessionId();
+        String getChainId();
+        boolean isExpired();
+        boolean isRotated();
+    }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -26,9 +27,23 @@ public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Stri
     @Query("SELECT rt FROM RevokedToken rt WHERE rt.chainId = :chainId ORDER BY rt.revokedAt DESC")
     List<RevokedToken> findByChainIdOrderByRevokedAtDesc(@Param("chainId") String chainId);
     
+    /**
+     * Deletes at most {@code batchSize} revocations whose tokens expired before {@code now},
+     * oldest first, in a transaction of its own.
+     */
+    @Transactional
     @Modifying
-    @Query("DELETE FROM RevokedToken rt WHERE rt.expiryAt < :now")
-    int deleteExpiredTokens(@Param("now") Instant now);
+    @Query(value = """
+            DELETE FROM revoked_token
+            WHERE jti IN (
+                SELECT jti FROM revoked_token
+                WHERE expiry_at < :now
+                ORDER BY expiry_at
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            """, nativeQuery = true)
+    int deleteExpiredTokens(@Param("now") Instant now, @Param("batchSize") int batchSize);
     
     @Query("SELECT COUNT(rt) FROM RevokedToken rt WHERE rt.user.id = :userId")
     long countRevokedTokensByUserId(@Param("userId") UUID userId);
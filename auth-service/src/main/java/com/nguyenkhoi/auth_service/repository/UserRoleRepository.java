@@ -2,9 +2,13 @@ package com.nguyenkhoi.auth_service.repository;
 
 import com.nguyenkhoi.auth_service.entities.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
@@ -12,4 +16,7 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     Optional<UserRole> findByName(String name);
     
     boolean existsByName(String name);
+
+    @Query(value = "SELECT role_id FROM user_roles WHERE user_id = :userId", nativeQuery = true)
+    List<Long> findRoleIdsByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
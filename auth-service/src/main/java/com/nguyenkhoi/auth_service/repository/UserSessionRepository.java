@@ -7,9 +7,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -26,20 +28,72 @@ public interface UserSessionRepository extends JpaRepository<UserSession, UUID>
     List<UserSession> findActiveSessionsByUserAndIp(@Param("userId") UUID userId, @Param("ipAddress") String ipAddress);
     
     @Modifying
-    @Query("UPDATE UserSession us SET us.revoked = true WHERE us.user.id = :userId")
+    @Query("UPDATE UserSession us SET us.revoked = true WHERE us.user.id = :userId AND us.revoked = false")
     int revokeAllUserSessions(@Param("userId") UUID userId);
     
     @Modifying
     @Query("UPDATE UserSession us SET us.revoked = true WHERE us.id = :sessionId")
     int revokeSession(@Param("sessionId") UUID sessionId);
     
-    @Modifying
-    @Query("UPDATE UserSession us SET us.lastActive = :now WHERE us.id = :sessionId")
-    int updateLastActive(@Param("sessionId") UUID sessionId, @Param("now") Instant now);
-    
     @Query("SELECT COUNT(us) FROM UserSession us WHERE us.user.id = :userId AND us.revoked = false")
     long countActiveSessionsByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Revokes all but the {@code keep} most recently active sessions of the user in one
+     * statement and returns the ids of the revoked sessions. The partial index on
+     * {@code (user_id, last_active) WHERE revoked = false} serves the ordering, so the cost
+     * depends on the user's active sessions only.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE user_session SET revoked = true
+            WHERE id IN (
+                SELECT id FROM user_session
+                WHERE user_id = :userId AND revoked = false
+                ORDER BY last_active DESC, id DESC
+                OFFSET :keep
+                FOR UPDATE
+            )
+            RETURNING id
+            """, nativeQuery = true)
+    List<UUID> revokeExcessActiveSessions(@Param("userId") UUID userId, @Param("keep") int keep);
     
-    @Query("SELECT us FROM UserSession us WHERE us.lastActive < :threshold AND us.revoked = false")
-    List<UserSession> findInactiveSessions(@Param("threshold") Instant threshold);
+    /**
+     * Revokes the next {@code batchSize} active sessions inactive since before
+     * {@code threshold}, in {@code (last_active, id)} order after the given keyset cursor,
+     * and returns the cursor of the last one. Returns no row once nothing is left. Sessions
+     * locked by concurrent requests are skipped and left for the next sweep.
+     */
+    @Transactional
+    @Query(value = """
+            WITH batch AS (
+                SELECT id, last_active
+                FROM user_session
+                WHERE revoked = false
+                  AND last_active < :threshold
+                  AND (last_active, id) > (:afterLastActive, :afterId)
+                ORDER BY last_active, id
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            ), revoked AS (
+                UPDATE user_session us SET revoked = true
+                FROM batch b
+                WHERE us.id = b.id
+                RETURNING us.id
+            )
+            SELECT b.last_active AS lastActive, b.id AS lastId, (SELECT count(*) FROM revoked) AS revoked
+            FROM batch b
+            ORDER BY b.last_active DESC, b.id DESC
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<SweepBatch> revokeInactiveSessions(@Param("threshold") Instant threshold,
+                                                @Param("afterLastActive") Instant afterLastActive,
+                                                @Param("afterId") UUID afterId,
+                                                @Param("batchSize") int batchSize);
+
+    interface SweepBatch {
+        Instant getLastActive();
+        UUID getLastId();
+        long getRevoked();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.RevokedToken;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import com.nguyenkhoi.auth_service.repository.RevokedTokenRepository;
+import com.nguyenkhoi.auth_service.utils.TransactionUtils;
+import com.nimbusds.jwt.JWTClaimsSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Revokes access tokens before their {@code exp}. The revocation is stored in
+ * {@code revoked_token} and, once committed, appended as a {@code jti}/{@code exp} delta to
+ * a Redis stream that every gateway node tails into its in-memory revocation filter.
+ * The stream is capped, since entries are only useful until the token expires.
+ * <p>
+ * Access tokens are not stored, so those of a breached session or of a user revoked by an
+ * administrator cannot be listed by {@code jti}. They are revoked through the session and
+ * user kill switches of {@link SessionRevocationPublisher} instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccessTokenRevocationService {
+
+    public static final String JTI_FIELD = "jti";
+    public static final String EXPIRY_FIELD = "exp";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final AppUserRepository appUserRepository;
+    private final JwtTokenService jwtTokenService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SessionRevocationPublisher sessionRevocationPublisher;
+
+    @Value("${security.revocation.stream-key:auth:access-token-revocations}")
+    private String streamKey;
+
+    @Value("${security.revocation.stream-max-length:100000}")
+    private long streamMaxLength;
+
+    @Transactional
+    public void revoke(String accessToken, RevocationReason reason) {
+        revoke(jwtTokenService.validateToken(accessToken), reason);
+    }
+
+    @Transactional
+    public void revoke(JWTClaimsSet claims, RevocationReason reason) {
+        String jti = jwtTokenService.extractTokenId(claims);
+        if (revokedTokenRepository.existsByJti(jti)) {
+            return;
+        }
+
+        Instant expiry = jwtTokenService.getTokenExpiration(claims);
+
+        RevokedToken revokedToken = new RevokedToken();
+        revokedToken.setJti(jti);
+        revokedToken.setUser(appUserRepository.getReferenceById(jwtTokenService.extractUserId(claims)));
+        revokedToken.setChainId(jwtTokenService.extractChainId(claims));
+        revokedToken.setExpiryAt(expiry);
+        revokedToken.setRevocationReason(reason);
+        revokedTokenRepository.save(revokedToken);
+
+        log.info("Access token {} revoked: {}", jti, reason);
+        TransactionUtils.afterCommit(() -> publish(jti, expiry));
+    }
+
+    /**
+     * Revokes every access token issued for the session.
+     */
+    public void revokeSession(UUID sessionId, RevocationReason reason) {
+        log.info("Access tokens of session {} revoked: {}", sessionId, reason);
+        sessionRevocationPublisher.sessionRevoked(sessionId);
+    }
+
+    /**
+     * Revokes every access token issued to the user so far.
+     */
+    public void revokeUser(UUID userId, RevocationReason reason) {
+        log.info("Access tokens of user {} revoked: {}", userId, reason);
+        sessionRevocationPublisher.userSessionsRevoked(userId);
+    }
+
+    private void publish(String jti, Instant expiry) {
+        try {
+            stringRedisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+                            JTI_FIELD, jti,
+                            EXPIRY_FIELD, Long.toString(expiry.toEpochMilli())))
+                    .withStreamKey(streamKey));
+            stringRedisTemplate.opsForStream().trim(streamKey, streamMaxLength, true);
+        } catch (Exception e) {
+            // The database row remains the record; gateways only miss it until the token expires.
+            log.error("Failed to publish revocation of access token {}: {}", jti, e.getMessage());
+        }
+    }
+}
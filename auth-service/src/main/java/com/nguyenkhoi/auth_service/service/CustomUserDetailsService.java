@@ -1,6 +1,5 @@
 package com.nguyenkhoi.auth_service.service;
 
-import com.nguyenkhoi.auth_service.entities.AppUser;
 import com.nguyenkhoi.auth_service.repository.AppUserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,8 +11,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -21,29 +21,50 @@ import java.util.Collections;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final AppUserRepository appUserRepository;
+    private final UserProfileCache userProfileCache;
+    private final RoleCatalog roleCatalog;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.debug("Loading user by username: {}", username);
         
-        // Try to find by username first, then by email
-        AppUser appUser = appUserRepository.findByUsername(username)
-                .or(() -> appUserRepository.findByEmail(username))
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // Unknown logins seen recently on this node are rejected without a query
+        if (userProfileCache.isKnownMissing(username)) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+
+        // Username first, then email, together with the role ids, in one query
+        AppUserRepository.LoginCredentials credentials = appUserRepository.findCredentialsByLogin(username)
+                .orElseThrow(() -> {
+                    userProfileCache.recordMissing(username);
+                    return new UsernameNotFoundException("User not found: " + username);
+                });
 
         return User.builder()
-                .username(appUser.getUsername())
-                .password(appUser.getPassword() != null ? appUser.getPassword() : "")
-                .authorities(getAuthorities(appUser))
+                .username(credentials.getUsername())
+                .password(credentials.getPassword() != null ? credentials.getPassword() : "")
+                .authorities(getAuthorities(roleCatalog.namesOf(parseRoleIds(credentials.getRoleIds()))))
                 .accountExpired(false)
-                .accountLocked(appUser.getIsLocked())
+                .accountLocked(credentials.isLocked())
                 .credentialsExpired(false)
-                .disabled(!appUser.getIsEnabled())
+                .disabled(!credentials.isEnabled())
                 .build();
     }
 
-    private Collection<? extends GrantedAuthority> getAuthorities(AppUser appUser) {
-        // For now, assign a default role. This can be enhanced later with proper role management
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+    private static List<Long> parseRoleIds(String roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String roleId : roleIds.split(",")) {
+            ids.add(Long.parseLong(roleId));
+        }
+        return ids;
+    }
+
+    private Collection<? extends GrantedAuthority> getAuthorities(List<String> roles) {
+        return roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
     }
-}
\ No newline at end of file
+}
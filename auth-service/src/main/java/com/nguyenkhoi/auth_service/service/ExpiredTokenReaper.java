@@ -0,0 +1,146 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.RevokedTokenRepository;
+import com.nguyenkhoi.auth_service.utils.AdvisoryLockUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Deletes expired refresh tokens and access-token revocations on a schedule.
+ * <p>
+ * Rows go in batches of {@code security.token-reaper.batch-size}, each its own short
+ * transaction, and the reaper sleeps between batches to stay under
+ * {@code security.token-reaper.rows-per-second}, so a large backlog is worked off without
+ * long-held locks or WAL bursts. A run stops after {@code max-run-time} and the next one
+ * picks up where it left off. A PostgreSQL advisory lock keeps it to one node at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExpiredTokenReaper {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final AtomicLong lastCompletedAt = new AtomicLong();
+
+    @Value("${security.token-reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.token-reaper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${security.token-reaper.rows-per-second:5000}")
+    private int rowsPerSecond;
+
+    @Value("${security.token-reaper.max-run-time:PT10M}")
+    private Duration maxRunTime;
+
+    @Value("${security.token-reaper.lock-key:7261001}")
+    private long lockKey;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("auth.token-reaper.last-run.deleted", lastRunDeleted, AtomicLong::get)
+                .description("Rows deleted by the most recent reaper run on this node")
+                .register(meterRegistry);
+        Gauge.builder("auth.token-reaper.last-run.completed", lastCompletedAt, AtomicLong::get)
+                .description("Epoch seconds at which the most recent reaper run on this node finished")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-reaper.interval:PT1H}",
+            initialDelayString = "${security.token-reaper.initial-delay:PT5M}")
+    public void reap() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!AdvisoryLockUtils.runExclusively(dataSource, lockKey, this::reapAll)) {
+                meterRegistry.counter("auth.token-reaper.skipped").increment();
+                log.debug("Expired token reaper is running on another node");
+            }
+        } catch (Exception e) {
+            meterRegistry.counter("auth.token-reaper.failures").increment();
+            log.error("Expired token reaper failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void reapAll() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Instant now = Instant.now();
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+
+        long refreshTokens = reapTable("refresh_token",
+                limit -> refreshTokenRepository.deleteExpiredTokens(now, limit), deadline);
+        long revokedTokens = reapTable("revoked_token",
+                limit -> revokedTokenRepository.deleteExpiredTokens(now, limit), deadline);
+
+        sample.stop(meterRegistry.timer("auth.token-reaper.run"));
+        lastRunDeleted.set(refreshTokens + revokedTokens);
+        lastCompletedAt.set(Instant.now().getEpochSecond());
+        if (refreshTokens + revokedTokens > 0) {
+            log.info("Reaped {} expired refresh tokens and {} expired revocations", refreshTokens, revokedTokens);
+        }
+    }
+
+    private long reapTable(String table, IntUnaryOperator deleteBatch, long deadline) {
+        Counter deletedRows = Counter.builder("auth.token-reaper.deleted")
+                .description("Expired rows deleted by the reaper")
+                .tag("table", table)
+                .register(meterRegistry);
+        Counter batches = Counter.builder("auth.token-reaper.batches")
+                .description("Delete batches executed by the reaper")
+                .tag("table", table)
+                .register(meterRegistry);
+
+        long start = System.nanoTime();
+        long total = 0;
+        while (System.nanoTime() < deadline) {
+            int deleted = deleteBatch.applyAsInt(batchSize);
+            total += deleted;
+            deletedRows.increment(deleted);
+            batches.increment();
+            if (deleted < batchSize) {
+                break;
+            }
+            if (!pace(start, total)) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Sleeps until the rows deleted so far fit the target rate; false when interrupted.
+    private boolean pace(long start, long total) {
+        long wait = start + total * 1_000_000_000L / Math.max(1, rowsPerSecond) - System.nanoTime();
+        if (wait <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(wait));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.utils.AdvisoryLockUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revokes sessions inactive for longer than {@code security.session-timeout-hours}.
+ * <p>
+ * Sessions are walked in {@code (last_active, id)} order with a keyset cursor, one UPDATE
+ * per batch of {@code security.session-sweeper.batch-size}, so memory stays flat however
+ * large the table is and each transaction stays short. A PostgreSQL advisory lock keeps
+ * the sweep to one node at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InactiveSessionSweeper {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final UserSessionRepository sessionRepository;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastRunRevoked = new AtomicLong();
+
+    @Value("${security.session-timeout-hours}")
+    private int sessionTimeoutHours;
+
+    @Value("${security.session-sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.session-sweeper.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${security.session-sweeper.max-run-time:PT10M}")
+    private Duration maxRunTime;
+
+    @Value("${security.session-sweeper.lock-key:7261002}")
+    private long lockKey;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("auth.session-sweeper.last-run.revoked", lastRunRevoked, AtomicLong::get)
+                .description("Sessions revoked by the most recent sweep on this node")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${security.session-sweeper.interval:PT15M}",
+            initialDelayString = "${security.session-sweeper.initial-delay:PT2M}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!AdvisoryLockUtils.runExclusively(dataSource, lockKey, this::sweepAll)) {
+                meterRegistry.counter("auth.session-sweeper.skipped").increment();
+                log.debug("Inactive session sweep is running on another node");
+            }
+        } catch (Exception e) {
+            meterRegistry.counter("auth.session-sweeper.failures").increment();
+            log.error("Inactive session sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void sweepAll() {
+        Counter revokedSessions = Counter.builder("auth.session-sweeper.revoked")
+                .description("Inactive sessions revoked by the sweeper")
+                .register(meterRegistry);
+        Counter batches = Counter.builder("auth.session-sweeper.batches")
+                .description("Revocation batches executed by the sweeper")
+                .register(meterRegistry);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Instant threshold = Instant.now().minus(sessionTimeoutHours, ChronoUnit.HOURS);
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        Instant afterLastActive = Instant.EPOCH;
+        UUID afterId = MIN_ID;
+        long total = 0;
+
+        while (System.nanoTime() < deadline) {
+            Optional<UserSessionRepository.SweepBatch> batch = sessionRepository
+                    .revokeInactiveSessions(threshold, afterLastActive, afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            batches.increment();
+            revokedSessions.increment(batch.get().getRevoked());
+            total += batch.get().getRevoked();
+            afterLastActive = batch.get().getLastActive();
+            afterId = batch.get().getLastId();
+            if (batch.get().getRevoked() < batchSize) {
+                break;
+            }
+        }
+
+        sample.stop(meterRegistry.timer("auth.session-sweeper.run"));
+        lastRunRevoked.set(total);
+        if (total > 0) {
+            log.info("Revoked {} sessions inactive since before {}", total, threshold);
+        }
+    }
+}
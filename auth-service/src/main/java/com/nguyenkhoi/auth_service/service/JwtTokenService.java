@@ -1,13 +1,13 @@
 package com.nguyenkhoi.auth_service.service;
 
 import com.nguyenkhoi.auth_service.entities.AppUser;
-import com.nguyenkhoi.auth_service.entities.UserRole;
 import com.nguyenkhoi.auth_service.entities.UserSession;
 import com.nguyenkhoi.auth_service.exception.AppException;
 import com.nguyenkhoi.auth_service.exception.ErrorCode;
+import com.nguyenkhoi.auth_service.utils.JwkUtils;
 import com.nimbusds.jose.*;
-import com.nimbusds.jose.crypto.RSASSASigner;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.RequiredArgsConstructor;
@@ -15,24 +15,25 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import jakarta.annotation.PostConstruct;
+
 import java.text.ParseException;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class JwtTokenService {
 
-    private final RSAPrivateKey jwtSigningKey;
-    private final RSAPublicKey jwtValidationKey;
-    private final com.nguyenkhoi.auth_service.repository.AppUserRepository appUserRepository;
+    private final JWK jwtSigningKey;
+    private final JWKSet jwtKeySet;
+    private final UserProfileCache userProfileCache;
+    private final RoleCatalog roleCatalog;
 
     @Value("${jwt.access-token.expiration}")
     private long accessTokenExpiration;
@@ -46,75 +47,68 @@ public class JwtTokenService {
     @Value("${jwt.audience}")
     private String audience;
 
-    public String generateAccessToken(AppUser user, String sessionId) {
-        return generateAccessToken(user, sessionId, generateChainId());
-    }
+    // Nimbus signers and verifiers are thread-safe, so one instance per key id is shared
+    // by all request threads instead of being rebuilt for every token.
+    private JWSSigner signer;
+    private JWSHeader header;
+    private Map<String, JWSVerifier> verifiers;
+    private JWSVerifier defaultVerifier;
 
-    public String generateAccessToken(AppUser user, String sessionId, String chainId) {
+    @PostConstruct
+    public void initializeSigning() {
         try {
-            Instant now = Instant.now();
-            Instant expiration = now.plus(accessTokenExpiration, ChronoUnit.SECONDS);
-
-            List<String> roles = user.getRoles().stream()
-                    .map(UserRole::getName)
-                    .collect(Collectors.toList());
+            this.signer = JwkUtils.signerFor(jwtSigningKey);
+            this.defaultVerifier = JwkUtils.verifierFor(jwtSigningKey);
 
-            JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
-                    .subject(user.getId().toString())
-                    .issuer(issuer)
-                    .audience(audience)
-                    .issueTime(Date.from(now))
-                    .expirationTime(Date.from(expiration))
-                    .claim("email", user.getEmail())
-                    .claim("username", user.getUsername())
-                    .claim("roles", roles)
-                    .claim("session_id", sessionId)
-                    .claim("chain_id", chainId)
-                    .claim("token_type", "access")
-                    .build();
+            Map<String, JWSVerifier> byKeyId = new HashMap<>();
+            for (JWK jwk : jwtKeySet.getKeys()) {
+                byKeyId.put(jwk.getKeyID(), JwkUtils.verifierFor(jwk));
+            }
+            byKeyId.put(jwtSigningKey.getKeyID(), defaultVerifier);
+            this.verifiers = Map.copyOf(byKeyId);
 
-            JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
-                    .keyID("auth-service-rsa-1")
+            // Parsing the header back keeps its Base64URL form, so serializing a token
+            // does not re-encode the header JSON each time.
+            JWSHeader template = new JWSHeader.Builder(JwkUtils.algorithmFor(jwtSigningKey))
+                    .keyID(jwtSigningKey.getKeyID())
                     .build();
-
-            SignedJWT signedJWT = new SignedJWT(header, claimsSet);
-            signedJWT.sign(new RSASSASigner(jwtSigningKey));
-
-            return signedJWT.serialize();
-        } catch (JOSEException e) {
-            throw new AppException(ErrorCode.JWT_EXCEPTION);
+            this.header = JWSHeader.parse(template.toBase64URL());
+        } catch (JOSEException | ParseException e) {
+            throw new AppException(ErrorCode.JWT_EXCEPTION, "Failed to initialize JWT signing key");
         }
     }
 
+    public String generateAccessToken(AppUser user, String sessionId) {
+        return generateAccessToken(user, sessionId, generateChainId());
+    }
+
     public String generateAccessToken(AppUser user, UserSession session, String chainId) {
+        return generateAccessToken(user, session.getId().toString(), chainId);
+    }
+
+    public String generateAccessToken(AppUser user, String sessionId, String chainId) {
         try {
-            Instant now = Instant.now();
-            Instant expiration = now.plus(accessTokenExpiration, ChronoUnit.SECONDS);
+            long now = System.currentTimeMillis();
 
-            List<String> roles = user.getRoles().stream()
-                    .map(UserRole::getName)
-                    .collect(Collectors.toList());
+            List<String> roles = roleCatalog.roleNames(user);
 
             JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                    .jwtID(UUID.randomUUID().toString())
                     .subject(user.getId().toString())
                     .issuer(issuer)
                     .audience(audience)
-                    .issueTime(Date.from(now))
-                    .expirationTime(Date.from(expiration))
+                    .issueTime(new Date(now))
+                    .expirationTime(new Date(now + accessTokenExpiration * 1000))
                     .claim("email", user.getEmail())
                     .claim("username", user.getUsername())
                     .claim("roles", roles)
-                    .claim("session_id", session.getId().toString())
+                    .claim("session_id", sessionId)
                     .claim("chain_id", chainId)
                     .claim("token_type", "access")
                     .build();
 
-            JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
-                    .keyID("auth-service-rsa-1")
-                    .build();
-
             SignedJWT signedJWT = new SignedJWT(header, claimsSet);
-            signedJWT.sign(new RSASSASigner(jwtSigningKey));
+            signedJWT.sign(signer);
 
             return signedJWT.serialize();
         } catch (JOSEException e) {
@@ -133,9 +127,8 @@ public class JwtTokenService {
     public JWTClaimsSet validateToken(String token) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
-            
-            RSASSAVerifier verifier = new RSASSAVerifier(jwtValidationKey);
-            if (!signedJWT.verify(verifier)) {
+
+            if (!signedJWT.verify(verifierFor(signedJWT.getHeader()))) {
                 throw new AppException(ErrorCode.INVALID_TOKEN);
             }
 
@@ -161,6 +154,18 @@ public class JwtTokenService {
         }
     }
 
+    private JWSVerifier verifierFor(JWSHeader jwsHeader) {
+        String keyId = jwsHeader.getKeyID();
+        if (keyId == null) {
+            return defaultVerifier;
+        }
+        JWSVerifier verifier = verifiers.get(keyId);
+        if (verifier == null) {
+            throw new AppException(ErrorCode.INVALID_TOKEN);
+        }
+        return verifier;
+    }
+
     public UUID extractUserId(JWTClaimsSet claims) {
         try {
             return UUID.fromString(claims.getSubject());
@@ -186,6 +191,14 @@ public class JwtTokenService {
         }
     }
 
+    public String extractTokenId(JWTClaimsSet claims) {
+        String jti = claims.getJWTID();
+        if (jti == null) {
+            throw new AppException(ErrorCode.INVALID_TOKEN);
+        }
+        return jti;
+    }
+
     public String extractEmail(JWTClaimsSet claims) {
         try {
             return claims.getStringClaim("email");
@@ -236,11 +249,11 @@ public class JwtTokenService {
         return refreshTokenExpiration;
     }
 
-    public AppUser getUserFromToken(String token) {
+    public UserProfileCache.Snapshot getUserFromToken(String token) {
         JWTClaimsSet claims = validateToken(token);
         UUID userId = extractUserId(claims);
         
-        return appUserRepository.findById(userId)
+        return userProfileCache.findById(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
     }
 
@@ -163,7 +163,7 @@ public class OAuth2Service {
 
         // Extract user from JWT token
         String token = authHeader.replace("Bearer ", "");
-        AppUser user = jwtTokenService.getUserFromToken(token);
+        UserProfileCache.Snapshot user = jwtTokenService.getUserFromToken(token);
 
         // Validate state parameter
         validateState(request.getState());
@@ -185,7 +185,7 @@ public class OAuth2Service {
         String googleUserId = (String) userInfo.get("id");
         oauth2UserService.findUserByOAuth(OAuthProvider.GOOGLE, googleUserId)
                 .ifPresent(existingUser -> {
-                    if (!existingUser.getId().equals(user.getId())) {
+                    if (!existingUser.getId().equals(user.id())) {
                         throw new AppException(ErrorCode.OAUTH_ACCOUNT_ALREADY_LINKED, 
                                 "This Google account is already linked to another user");
                     }
@@ -193,7 +193,7 @@ public class OAuth2Service {
 
         // Link the account
         oauth2UserService.createExternalAccount(
-                user,
+                user.id(),
                 OAuthProvider.GOOGLE,
                 googleUserId,
                 (String) userInfo.get("email"),
@@ -206,7 +206,7 @@ public class OAuth2Service {
         // Clean up temporary data
         cleanupOAuthState(request.getState());
 
-        log.info("Google account linked successfully for user: {}", user.getEmail());
+        log.info("Google account linked successfully for user: {}", user.email());
     }
 
     public void unlinkGoogleAccount(String authHeader) {
@@ -214,12 +214,12 @@ public class OAuth2Service {
 
         // Extract user from JWT token
         String token = authHeader.replace("Bearer ", "");
-        AppUser user = jwtTokenService.getUserFromToken(token);
+        UserProfileCache.Snapshot user = jwtTokenService.getUserFromToken(token);
 
         // Unlink the account
-        oauth2UserService.unlinkOAuthAccount(user, OAuthProvider.GOOGLE);
+        oauth2UserService.unlinkOAuthAccount(user.id(), OAuthProvider.GOOGLE);
 
-        log.info("Google account unlinked successfully for user: {}", user.getEmail());
+        log.info("Google account unlinked successfully for user: {}", user.email());
     }
 
     private void validateState(String state) {
@@ -29,6 +29,7 @@ public class OAuth2UserService {
     private final UserExternalAccountRepository externalAccountRepository;
     private final UserRoleRepository userRoleRepository;
     private final TokenEncryptionService tokenEncryptionService;
+    private final UserProfileCache userProfileCache;
 
     @Transactional
     public AppUser processOAuth2User(OAuthProvider provider, String providerUserId, 
@@ -74,7 +75,9 @@ public class OAuth2UserService {
                 .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_EXISTED));
         user.setRoles(Set.of(userRole));
 
-        return userRepository.save(user);
+        AppUser savedUser = userRepository.save(user);
+        userProfileCache.loginsTaken(savedUser.getUsername(), savedUser.getEmail());
+        return savedUser;
     }
 
     @Transactional
@@ -102,6 +105,15 @@ public class OAuth2UserService {
         return externalAccountRepository.save(account);
     }
 
+    @Transactional
+    public UserExternalAccount createExternalAccount(UUID userId, OAuthProvider provider,
+                                                   String providerUserId, String providerEmail,
+                                                   String accessToken, String refreshToken,
+                                                   Long expiresIn, String scopes) {
+        return createExternalAccount(userRepository.getReferenceById(userId), provider, providerUserId,
+                providerEmail, accessToken, refreshToken, expiresIn, scopes);
+    }
+
     @Transactional
     public void updateExternalAccountTokens(UserExternalAccount account, String accessToken, 
                                           String refreshToken, Long expiresIn, String scopes) {
@@ -134,7 +146,12 @@ public class OAuth2UserService {
 
     @Transactional
     public void unlinkOAuthAccount(AppUser user, OAuthProvider provider) {
-        Optional<UserExternalAccount> account = externalAccountRepository.findByUserAndProvider(user, provider);
+        unlinkOAuthAccount(user.getId(), provider);
+    }
+
+    @Transactional
+    public void unlinkOAuthAccount(UUID userId, OAuthProvider provider) {
+        Optional<UserExternalAccount> account = externalAccountRepository.findByUserIdAndProvider(userId, provider);
         if (account.isPresent()) {
             externalAccountRepository.delete(account.get());
         } else {
@@ -3,11 +3,16 @@ package com.nguyenkhoi.auth_service.service;
 import com.nguyenkhoi.auth_service.dto.response.TokenResponse;
 import com.nguyenkhoi.auth_service.entities.AppUser;
 import com.nguyenkhoi.auth_service.entities.RefreshToken;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
 import com.nguyenkhoi.auth_service.entities.UserSession;
 import com.nguyenkhoi.auth_service.exception.AppException;
 import com.nguyenkhoi.auth_service.exception.ErrorCode;
 import com.nguyenkhoi.auth_service.mapper.TokenMapper;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
 import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import com.nguyenkhoi.auth_service.utils.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +33,10 @@ public class RefreshTokenService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtTokenService jwtTokenService;
     private final TokenMapper tokenMapper;
+    private final AppUserRepository appUserRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final RefreshTokenStateCache refreshTokenStateCache;
+    private final AccessTokenRevocationService accessTokenRevocationService;
 
     @Value("${jwt.refresh-token.expiration}")
     private long refreshTokenExpiration;
@@ -46,7 +55,7 @@ public class RefreshTokenService {
         RefreshToken refreshToken = new RefreshToken();
         refreshToken.setUser(user);
         refreshToken.setSession(session);
-        refreshToken.setToken(tokenIdentifier);
+        refreshToken.setTokenHash(TokenHashUtils.sha256(tokenIdentifier));
         refreshToken.setChainId(chainId);
         refreshToken.setIssuedAt(now);
         refreshToken.setExpiryAt(expiration);
@@ -55,47 +64,104 @@ public class RefreshTokenService {
         refreshToken.setUserAgent(userAgent);
 
         RefreshToken savedToken = refreshTokenRepository.save(refreshToken);
-        return tokenMapper.toResponse(savedToken);
+        cacheAfterCommit(savedToken.getTokenHash(), new RefreshTokenStateCache.State(
+                user.getId(), session != null ? session.getId() : null, chainId, expiration, false));
+        TokenResponse response = tokenMapper.toResponse(savedToken);
+        response.setToken(tokenIdentifier);
+        return response;
     }
 
-    @Transactional
+    /**
+     * Rotates a refresh token in two statements: a compare-and-set that revokes the old token
+     * and reports its state, then the INSERT of the successor in the same chain. A token that
+     * is already revoked, including one just rotated by a concurrent request, is treated as
+     * reuse and revokes the whole chain; that revocation is kept although the call fails.
+     * Tokens the cache already knows to be revoked or expired are rejected before the
+     * compare-and-set, which stays the only way to rotate.
+     */
+    @Transactional(noRollbackFor = AppException.class)
     public TokenResponse rotateRefreshToken(String oldTokenIdentifier, String ipAddress, String userAgent) {
-        RefreshToken oldToken = refreshTokenRepository.findByToken(oldTokenIdentifier)
-                .orElseThrow(() -> new AppException(ErrorCode.INVALID_TOKEN));
+        byte[] tokenHash = TokenHashUtils.sha256(oldTokenIdentifier);
+        Instant now = Instant.now();
 
-        if (oldToken.getRevoked()) {
-            revokeTokenChain(oldToken.getChainId());
-            throw new AppException(ErrorCode.INVALID_TOKEN);
+        Optional<RefreshTokenStateCache.State> cached = refreshTokenStateCache.get(tokenHash);
+        if (cached.isPresent()) {
+            RefreshTokenStateCache.State state = cached.get();
+            if (state.revoked()) {
+                handleReuse(state.chainId(), state.userId(), state.sessionId());
+                throw new AppException(ErrorCode.INVALID_TOKEN);
+            }
+            if (!state.expiryAt().isAfter(now)) {
+                throw new AppException(ErrorCode.TOKEN_EXPIRED);
+            }
         }
 
-        if (oldToken.getExpiryAt().isBefore(Instant.now())) {
+        String successor = jwtTokenService.generateRefreshTokenIdentifier();
+        byte[] successorHash = TokenHashUtils.sha256(successor);
+
+        RefreshTokenRepository.RotationResult rotation = refreshTokenRepository
+                .rotateToken(tokenHash, successorHash, now)
+                .orElseThrow(() -> new AppException(ErrorCode.INVALID_TOKEN));
+
+        if (rotation.isExpired()) {
             throw new AppException(ErrorCode.TOKEN_EXPIRED);
         }
 
-        TokenResponse newToken = createRefreshToken(
-                oldToken.getUser(),
-                oldToken.getSession(),
-                oldToken.getChainId(),
-                ipAddress,
-                userAgent
-        );
+        if (!rotation.isRotated()) {
+            handleReuse(rotation.getChainId(), rotation.getUserId(), rotation.getSessionId());
+            throw new AppException(ErrorCode.INVALID_TOKEN);
+        }
 
-        oldToken.setRevoked(true);
-        oldToken.setReplacedBy(newToken.getToken());
-        refreshTokenRepository.save(oldToken);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(appUserRepository.getReferenceById(rotation.getUserId()));
+        if (rotation.getSessionId() != null) {
+            refreshToken.setSession(userSessionRepository.getReferenceById(rotation.getSessionId()));
+        }
+        Instant expiration = now.plus(refreshTokenExpiration, ChronoUnit.SECONDS);
+        refreshToken.setTokenHash(successorHash);
+        refreshToken.setChainId(rotation.getChainId());
+        refreshToken.setIssuedAt(now);
+        refreshToken.setExpiryAt(expiration);
+        refreshToken.setRevoked(false);
+        refreshToken.setIpAddress(ipAddress);
+        refreshToken.setUserAgent(userAgent);
 
-        return newToken;
+        TokenResponse response = tokenMapper.toResponse(refreshTokenRepository.save(refreshToken));
+        TransactionUtils.afterCommit(() -> refreshTokenStateCache.revokeTokens(List.of(tokenHash)));
+        cacheAfterCommit(successorHash, new RefreshTokenStateCache.State(
+                rotation.getUserId(), rotation.getSessionId(), rotation.getChainId(), expiration, false));
+        response.setToken(successor);
+        return response;
     }
 
-    public RefreshToken validateRefreshToken(String tokenIdentifier) {
-        RefreshToken token = refreshTokenRepository.findByToken(tokenIdentifier)
-                .orElseThrow(() -> new AppException(ErrorCode.INVALID_TOKEN));
+    /**
+     * A revoked refresh token came back, so the chain is treated as stolen: it is revoked
+     * along with the access tokens of its session, or of the whole user when it has none.
+     */
+    private void handleReuse(String chainId, UUID userId, UUID sessionId) {
+        log.warn("Refresh token reuse detected, revoking chain {}", chainId);
+        revokeTokenChain(userId, chainId);
+        if (sessionId != null) {
+            accessTokenRevocationService.revokeSession(sessionId, RevocationReason.SECURITY_BREACH);
+        } else {
+            accessTokenRevocationService.revokeUser(userId, RevocationReason.SECURITY_BREACH);
+        }
+    }
+
+    /**
+     * Validates a token from the cache, falling back to the covering-index lookup on a miss
+     * and caching what it read.
+     */
+    public RefreshTokenStateCache.State validateRefreshToken(String tokenIdentifier) {
+        byte[] tokenHash = TokenHashUtils.sha256(tokenIdentifier);
+        RefreshTokenStateCache.State token = refreshTokenStateCache.get(tokenHash)
+                .orElseGet(() -> loadState(tokenHash));
 
-        if (token.getRevoked()) {
+        if (token.revoked()) {
             throw new AppException(ErrorCode.INVALID_TOKEN);
         }
 
-        if (token.getExpiryAt().isBefore(Instant.now())) {
+        if (token.expiryAt().isBefore(Instant.now())) {
             throw new AppException(ErrorCode.TOKEN_EXPIRED);
         }
 
@@ -104,22 +170,26 @@ public class RefreshTokenService {
 
     @Transactional
     public void revokeRefreshToken(String tokenIdentifier) {
-        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByToken(tokenIdentifier);
+        byte[] tokenHash = TokenHashUtils.sha256(tokenIdentifier);
+        Optional<RefreshToken> tokenOpt = refreshTokenRepository.findByTokenHash(tokenHash);
         if (tokenOpt.isPresent()) {
             RefreshToken token = tokenOpt.get();
             token.setRevoked(true);
             refreshTokenRepository.save(token);
+            TransactionUtils.afterCommit(() -> refreshTokenStateCache.revokeTokens(List.of(tokenHash)));
         }
     }
 
     @Transactional
-    public void revokeTokenChain(String chainId) {
+    public void revokeTokenChain(UUID userId, String chainId) {
         refreshTokenRepository.revokeTokensByChainId(chainId);
+        TransactionUtils.afterCommit(() -> refreshTokenStateCache.revokeChains(userId, List.of(chainId)));
     }
 
     @Transactional
     public void revokeAllUserTokens(UUID userId) {
         refreshTokenRepository.revokeAllUserTokens(userId);
+        TransactionUtils.afterCommit(() -> refreshTokenStateCache.revokeUser(userId));
     }
 
     public List<TokenResponse> getActiveTokensForUser(UUID userId) {
@@ -136,30 +206,35 @@ public class RefreshTokenService {
         return refreshTokenRepository.countActiveTokensByUserId(userId);
     }
 
-    @Transactional
-    public void cleanupExpiredTokens() {
-        refreshTokenRepository.deleteExpiredTokens(Instant.now());
-    }
-
+    /**
+     * Makes room for one more token by revoking the user's oldest active tokens beyond
+     * {@code security.max-refresh-tokens-per-user - 1}. Runs as a single UPDATE in the
+     * caller's transaction, so its cost does not grow with the tokens loaded.
+     */
     @Transactional
     public void cleanupExcessiveTokens(UUID userId) {
-        long activeTokenCount = refreshTokenRepository.countActiveTokensByUserId(userId);
-        
-        if (activeTokenCount >= maxRefreshTokensPerUser) {
-            List<RefreshToken> activeTokens = refreshTokenRepository.findActiveTokensByUserId(userId);
-            
-            activeTokens.stream()
-                    .sorted((t1, t2) -> t1.getIssuedAt().compareTo(t2.getIssuedAt()))
-                    .limit(activeTokenCount - maxRefreshTokensPerUser + 1)
-                    .forEach(token -> {
-                        token.setRevoked(true);
-                        refreshTokenRepository.save(token);
-                    });
+        List<byte[]> revoked = refreshTokenRepository.revokeExcessActiveTokens(userId, Math.max(0, maxRefreshTokensPerUser - 1));
+        if (!revoked.isEmpty()) {
+            log.debug("Revoked {} excess refresh tokens for user {}", revoked.size(), userId);
+            TransactionUtils.afterCommit(() -> refreshTokenStateCache.revokeTokens(revoked));
         }
     }
 
     public Optional<RefreshToken> findByToken(String tokenIdentifier) {
-        return refreshTokenRepository.findByToken(tokenIdentifier);
+        return refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(tokenIdentifier));
+    }
+
+    private RefreshTokenStateCache.State loadState(byte[] tokenHash) {
+        RefreshTokenRepository.TokenState stored = refreshTokenRepository.findStateByTokenHash(tokenHash)
+                .orElseThrow(() -> new AppException(ErrorCode.INVALID_TOKEN));
+        RefreshTokenStateCache.State state = new RefreshTokenStateCache.State(
+                stored.getUserId(), stored.getSessionId(), stored.getChainId(), stored.getExpiryAt(), stored.isRevoked());
+        refreshTokenStateCache.putIfAbsent(tokenHash, state);
+        return state;
+    }
+
+    private void cacheAfterCommit(byte[] tokenHash, RefreshTokenStateCache.State state) {
+        TransactionUtils.afterCommit(() -> refreshTokenStateCache.put(tokenHash, state));
     }
 
     public boolean isValidRefreshToken(String tokenIdentifier) {
@@ -0,0 +1,329 @@
+package com.nguyenkhoi.auth_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Hot copy of refresh-token state in Redis, keyed by the token's SHA-256 digest, so
+ * validation and the rejection of revoked or expired tokens skip PostgreSQL.
+ * <p>
+ * PostgreSQL stays the source of truth: callers write there first and update the cache once
+ * the transaction has committed. Each entry is a hash of user id, session id, chain id,
+ * expiry and revoked flag that expires with the token. Entries are indexed by chain and
+ * chains by user; a chain's index carries its user's hash tag, so both indexes share one
+ * slot. Every script only touches the keys it is given, so the cache works on Redis Cluster.
+ * <p>
+ * A revoked entry is served as is, but an active one only while it is still indexed under its
+ * chain and its chain under its user; otherwise the read is a miss and falls back to the
+ * database. Revoking a chain or a user is therefore one script that sets their tombstones,
+ * held for {@code revocation-guard}, and drops the indexes. Marking the indexed entries
+ * revoked afterwards only saves later database reads, so a Redis failure part way through
+ * leaves entries that are no longer served rather than stale active ones.
+ * <p>
+ * A write checks the token's tombstone before storing the entry and indexes it in one script
+ * that refuses when the chain's or user's tombstone is set, so a database read racing a
+ * revocation cannot leave a servable active copy behind.
+ * <p>
+ * Redis failures are logged and treated as a miss; the cache is disabled with
+ * {@code security.refresh-token-cache.enabled=false}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenStateCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final String USER = "user";
+    private static final String SESSION = "session";
+    private static final String CHAIN = "chain";
+    private static final String EXPIRY = "exp";
+    private static final String REVOKED = "revoked";
+
+    // KEYS: token, token tombstone. ARGV: user, session, chain, expiry millis, revoked,
+    // token ttl millis, only-if-absent flag.
+    private static final RedisScript<Long> PUT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            if ARGV[7] == '1' and redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'user', ARGV[1], 'session', ARGV[2], 'chain', ARGV[3],
+                'exp', ARGV[4], 'revoked', ARGV[5])
+            redis.call('PEXPIRE', KEYS[1], ARGV[6])
+            return 1
+            """, Long.class);
+
+    // KEYS: user index, its tombstone, chain index, its tombstone. ARGV: chain, token key,
+    // ttl millis. Returns 1 without indexing when either tombstone is set.
+    private static final RedisScript<Long> INDEX = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 or redis.call('EXISTS', KEYS[4]) == 1 then
+                return 1
+            end
+            redis.call('SADD', KEYS[1], ARGV[1])
+            redis.call('SADD', KEYS[3], ARGV[2])
+            for i = 1, 3, 2 do
+                if redis.call('PTTL', KEYS[i]) < tonumber(ARGV[3]) then
+                    redis.call('PEXPIRE', KEYS[i], ARGV[3])
+                end
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: user index, chain index. ARGV: chain, token key. Returns 1 while both are indexed.
+    private static final RedisScript<Long> INDEXED = RedisScript.of("""
+            if redis.call('SISMEMBER', KEYS[1], ARGV[1]) == 1
+                    and redis.call('SISMEMBER', KEYS[2], ARGV[2]) == 1 then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: token, token tombstone. ARGV: guard millis.
+    private static final RedisScript<Long> REVOKE_TOKEN = RedisScript.of("""
+            redis.call('SET', KEYS[2], '1', 'PX', ARGV[1])
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                redis.call('HSET', KEYS[1], 'revoked', '1')
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    // KEYS: user index, then each chain index followed by its tombstone. ARGV: guard millis,
+    // then the chains. Returns the token keys the chains indexed.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REVOKE_CHAINS = RedisScript.of("""
+            local tokens = {}
+            for i = 2, #KEYS, 2 do
+                redis.call('SET', KEYS[i + 1], '1', 'PX', ARGV[1])
+                redis.call('SREM', KEYS[1], ARGV[i / 2 + 1])
+                for _, token in ipairs(redis.call('SMEMBERS', KEYS[i])) do
+                    tokens[#tokens + 1] = token
+                end
+                redis.call('DEL', KEYS[i])
+            end
+            return tokens
+            """, List.class);
+
+    // KEYS: user index, its tombstone. ARGV: guard millis. Returns the chains it indexed.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REVOKE_USER = RedisScript.of("""
+            redis.call('SET', KEYS[2], '1', 'PX', ARGV[1])
+            local chains = redis.call('SMEMBERS', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return chains
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${security.refresh-token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.refresh-token-cache.key-prefix:auth:refresh-token:}")
+    private String keyPrefix;
+
+    @Value("${security.refresh-token-cache.revocation-guard:PT30S}")
+    private Duration revocationGuard;
+
+    public record State(UUID userId, UUID sessionId, String chainId, Instant expiryAt, boolean revoked) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<State> get(byte[] tokenHash) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            String tokenKey = tokenKey(tokenHash);
+            Map<Object, Object> entry = stringRedisTemplate.opsForHash().entries(tokenKey);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            Object session = entry.get(SESSION);
+            State state = new State(
+                    UUID.fromString((String) entry.get(USER)),
+                    session == null || ((String) session).isEmpty() ? null : UUID.fromString((String) session),
+                    (String) entry.get(CHAIN),
+                    Instant.ofEpochMilli(Long.parseLong((String) entry.get(EXPIRY))),
+                    "1".equals(entry.get(REVOKED)));
+            if (state.revoked() || isIndexed(tokenKey, state)) {
+                return Optional.of(state);
+            }
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("Failed to read refresh token state from cache: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the state of a token that was just written to the database.
+     */
+    public void put(byte[] tokenHash, State state) {
+        write(tokenHash, state, false);
+    }
+
+    /**
+     * Stores state read from the database unless the token is already cached, in which case
+     * the cached copy is at least as recent, or was revoked within {@code revocation-guard}.
+     */
+    public void putIfAbsent(byte[] tokenHash, State state) {
+        write(tokenHash, state, true);
+    }
+
+    public void revokeTokens(Collection<byte[]> tokenHashes) {
+        if (!enabled || tokenHashes.isEmpty()) {
+            return;
+        }
+        try {
+            for (byte[] tokenHash : tokenHashes) {
+                revokeToken(tokenKey(tokenHash));
+            }
+        } catch (Exception e) {
+            logRevocationFailure("tokens", e);
+        }
+    }
+
+    public void revokeChains(UUID userId, Collection<String> chainIds) {
+        if (!enabled || chainIds.isEmpty()) {
+            return;
+        }
+        try {
+            for (String tokenKey : revokeChainIndexes(userId, chainIds)) {
+                revokeToken(tokenKey);
+            }
+        } catch (Exception e) {
+            logRevocationFailure("chains of user " + userId, e);
+        }
+    }
+
+    public void revokeUser(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> chainIds = stringRedisTemplate.execute(REVOKE_USER,
+                    List.of(userKey(userId), tombstoneKey(userKey(userId))), guardMillis());
+            if (chainIds == null || chainIds.isEmpty()) {
+                return;
+            }
+            for (String tokenKey : revokeChainIndexes(userId, chainIds)) {
+                revokeToken(tokenKey);
+            }
+        } catch (Exception e) {
+            logRevocationFailure("user " + userId, e);
+        }
+    }
+
+    private void write(byte[] tokenHash, State state, boolean onlyIfAbsent) {
+        if (!enabled) {
+            return;
+        }
+        long ttl = state.expiryAt().toEpochMilli() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        String tokenKey = tokenKey(tokenHash);
+        try {
+            Long stored = stringRedisTemplate.execute(PUT,
+                    List.of(tokenKey, tombstoneKey(tokenKey)),
+                    state.userId().toString(),
+                    state.sessionId() == null ? "" : state.sessionId().toString(),
+                    state.chainId(),
+                    String.valueOf(state.expiryAt().toEpochMilli()),
+                    state.revoked() ? "1" : "0",
+                    String.valueOf(ttl),
+                    onlyIfAbsent ? "1" : "0");
+            if (stored == null || stored == 0) {
+                return;
+            }
+            // Indexed after the entry is stored and only served once indexed, so a revocation
+            // that misses it here sets its tombstone before the index is checked.
+            String userKey = userKey(state.userId());
+            String chainKey = chainKey(state.userId(), state.chainId());
+            Long refused = stringRedisTemplate.execute(INDEX,
+                    List.of(userKey, tombstoneKey(userKey), chainKey, tombstoneKey(chainKey)),
+                    state.chainId(), tokenKey, String.valueOf(ttl));
+            if (refused != null && refused == 1) {
+                stringRedisTemplate.delete(tokenKey);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to cache refresh token state: {}", e.getMessage());
+        }
+    }
+
+    private boolean isIndexed(String tokenKey, State state) {
+        Long indexed = stringRedisTemplate.execute(INDEXED,
+                List.of(userKey(state.userId()), chainKey(state.userId(), state.chainId())),
+                state.chainId(), tokenKey);
+        return indexed != null && indexed == 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> revokeChainIndexes(UUID userId, Collection<String> chainIds) {
+        List<String> keys = new ArrayList<>(1 + 2 * chainIds.size());
+        List<String> args = new ArrayList<>(1 + chainIds.size());
+        keys.add(userKey(userId));
+        args.add(guardMillis());
+        for (String chainId : chainIds) {
+            String chainKey = chainKey(userId, chainId);
+            keys.add(chainKey);
+            keys.add(tombstoneKey(chainKey));
+            args.add(chainId);
+        }
+        List<String> tokenKeys = stringRedisTemplate.execute(REVOKE_CHAINS, keys, args.toArray());
+        return tokenKeys != null ? tokenKeys : List.of();
+    }
+
+    private void revokeToken(String tokenKey) {
+        stringRedisTemplate.execute(REVOKE_TOKEN, List.of(tokenKey, tombstoneKey(tokenKey)), guardMillis());
+    }
+
+    private String guardMillis() {
+        return String.valueOf(revocationGuard.toMillis());
+    }
+
+    private static void logRevocationFailure(String target, Exception e) {
+        // Chains and users are unindexed before their entries are marked, so what is left
+        // behind is a miss; a single token's stale entry can only make validation look valid
+        // until it expires, since rotation still goes through the database compare-and-set.
+        log.error("Failed to revoke cached refresh tokens for {}: {}", target, e.getMessage());
+    }
+
+    // Keys carry their id as a hash tag, which keeps each key and its tombstone in one slot;
+    // chain keys carry their user's id, which keeps a user's indexes in one slot too.
+    private String tokenKey(byte[] tokenHash) {
+        return keyPrefix + "{" + HEX.formatHex(tokenHash) + "}";
+    }
+
+    private String chainKey(UUID userId, String chainId) {
+        return keyPrefix + "chain:{" + userId + "}:" + chainId;
+    }
+
+    private String userKey(UUID userId) {
+        return keyPrefix + "user:{" + userId + "}";
+    }
+
+    private static String tombstoneKey(String key) {
+        return key + ":revoked";
+    }
+}
@@ -0,0 +1,82 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.UserRole;
+import com.nguyenkhoi.auth_service.repository.UserRoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-process map of role ids to role names.
+ * <p>
+ * Roles are a handful of rows that change with releases rather than with traffic, so the
+ * whole {@code user_role} table is held here and a user's roles cost one index-only read of
+ * {@code user_roles} instead of a join through the role entities. The map is reloaded when
+ * a user holds a role id it has not seen yet.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoleCatalog {
+
+    private final UserRoleRepository userRoleRepository;
+
+    private volatile Map<Long, String> namesById = Map.of();
+
+    @PostConstruct
+    public void refresh() {
+        Map<Long, String> names = new HashMap<>();
+        for (UserRole role : userRoleRepository.findAll()) {
+            names.put(role.getId(), role.getName());
+        }
+        namesById = Map.copyOf(names);
+        log.debug("Loaded {} roles", names.size());
+    }
+
+    /**
+     * Role names of the user. Roles already loaded on the entity are used as they are;
+     * otherwise they are read by user id, which also works on a detached user.
+     */
+    public List<String> roleNames(AppUser user) {
+        Set<UserRole> roles = user.getRoles();
+        if (roles != null && Hibernate.isInitialized(roles)) {
+            List<String> names = new ArrayList<>(roles.size());
+            for (UserRole role : roles) {
+                names.add(role.getName());
+            }
+            return names;
+        }
+        return roleNames(user.getId());
+    }
+
+    public List<String> roleNames(UUID userId) {
+        return namesOf(userRoleRepository.findRoleIdsByUserId(userId));
+    }
+
+    public List<String> namesOf(Collection<Long> roleIds) {
+        Map<Long, String> names = namesById;
+        if (!names.keySet().containsAll(roleIds)) {
+            refresh();
+            names = namesById;
+        }
+        List<String> result = new ArrayList<>(roleIds.size());
+        for (Long roleId : roleIds) {
+            String name = names.get(roleId);
+            if (name != null) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+}
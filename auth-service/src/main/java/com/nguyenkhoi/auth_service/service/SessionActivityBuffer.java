@@ -0,0 +1,134 @@
+package com.nguyenkhoi.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces session activity in memory and writes it to {@code user_session.last_active}
+ * in batches.
+ * <p>
+ * Only the latest timestamp per session is kept, so a session costs one row update per
+ * {@code security.session-activity-flush-interval} however many requests it makes, and
+ * {@code last_active} lags real activity by at most that interval. Each flush is one
+ * {@code UPDATE ... FROM (VALUES ...)} per {@code security.session-activity-batch-size}
+ * sessions, which never moves {@code last_active} backwards, so nodes flushing the same
+ * session in any order agree. Pending activity is flushed on shutdown.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionActivityBuffer {
+
+    private static final String UPDATE_PREFIX =
+            "UPDATE user_session us SET last_active = v.last_active FROM (VALUES ";
+    private static final String UPDATE_ROW = "(?::uuid, ?::timestamp)";
+    private static final String UPDATE_SUFFIX =
+            ") AS v(id, last_active) WHERE us.id = v.id AND us.last_active < v.last_active";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, Instant> pending = new ConcurrentHashMap<>();
+    private Counter recorded;
+    private Counter flushed;
+
+    @Value("${security.session-activity-batch-size:500}")
+    private int batchSize;
+
+    @PostConstruct
+    public void registerMetrics() {
+        recorded = Counter.builder("auth.session-activity.recorded")
+                .description("Session activity events handed to the buffer")
+                .register(meterRegistry);
+        flushed = Counter.builder("auth.session-activity.flushed")
+                .description("Session last_active values written to the database")
+                .register(meterRegistry);
+        Gauge.builder("auth.session-activity.pending", pending, Map::size)
+                .description("Sessions with activity waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    public void record(UUID sessionId) {
+        keepLatest(sessionId, Instant.now());
+        recorded.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${security.session-activity-flush-interval:PT30S}",
+            initialDelayString = "${security.session-activity-flush-interval:PT30S}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        Iterator<UUID> sessions = pending.keySet().iterator();
+        while (sessions.hasNext()) {
+            UUID sessionId = sessions.next();
+            // Removing the entry itself hands activity recorded after this point to the next flush.
+            Instant activeAt = pending.remove(sessionId);
+            if (activeAt == null) {
+                continue;
+            }
+            // last_active has no time zone and holds UTC wall time, as Hibernate writes it.
+            batch.add(new Object[]{sessionId, LocalDateTime.ofInstant(activeAt, ZoneOffset.UTC)});
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<Object[]> batch) {
+        StringBuilder sql = new StringBuilder(UPDATE_PREFIX.length() + UPDATE_SUFFIX.length()
+                + batch.size() * (UPDATE_ROW.length() + 2));
+        sql.append(UPDATE_PREFIX);
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPDATE_ROW);
+            args[2 * i] = batch.get(i)[0];
+            args[2 * i + 1] = batch.get(i)[1];
+        }
+        sql.append(UPDATE_SUFFIX);
+
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            flushed.increment(batch.size());
+        } catch (Exception e) {
+            // Put the activity back unless newer activity arrived meanwhile; the next flush retries.
+            log.error("Failed to flush activity of {} sessions: {}", batch.size(), e.getMessage());
+            for (Object[] row : batch) {
+                keepLatest((UUID) row[0], ((LocalDateTime) row[1]).toInstant(ZoneOffset.UTC));
+            }
+        }
+    }
+
+    private void keepLatest(UUID sessionId, Instant activeAt) {
+        pending.merge(sessionId, activeAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+}
@@ -0,0 +1,62 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.utils.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Propagates session kill switches to the gateway nodes.
+ * <p>
+ * Each revocation is recorded in a Redis sorted set scored by the revocation time, which
+ * gateways read as a snapshot on startup and on every resync, and announced on a pub/sub
+ * channel as {@code session:<id>:<millis>} or {@code user:<id>:<millis>} for immediate effect.
+ * A user-wide entry is an epoch: every access token issued before it is rejected. Times are
+ * truncated to whole seconds to line up with the {@code iat} claim, so the token of a login
+ * made right after a revoke-all is not caught by it.
+ * Entries older than the access-token lifetime are pruned, since the tokens they target
+ * have expired anyway.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionRevocationPublisher {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${jwt.access-token.expiration}")
+    private long accessTokenExpiration;
+
+    @Value("${security.revocation.session-channel:auth:session-revocations}")
+    private String channel;
+
+    @Value("${security.revocation.revoked-sessions-key:auth:revoked-sessions}")
+    private String revokedSessionsKey;
+
+    @Value("${security.revocation.user-epochs-key:auth:user-revocation-epochs}")
+    private String userEpochsKey;
+
+    public void sessionRevoked(UUID sessionId) {
+        TransactionUtils.afterCommit(() -> publish(revokedSessionsKey, "session", sessionId));
+    }
+
+    public void userSessionsRevoked(UUID userId) {
+        TransactionUtils.afterCommit(() -> publish(userEpochsKey, "user", userId));
+    }
+
+    private void publish(String key, String type, UUID id) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        try {
+            stringRedisTemplate.opsForZSet().add(key, id.toString(), now);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(key, 0, now - accessTokenExpiration * 1000);
+            stringRedisTemplate.convertAndSend(channel, type + ":" + id + ":" + now);
+        } catch (Exception e) {
+            // The database flag still blocks refreshes; only already issued access tokens outlive it.
+            log.error("Failed to publish {} revocation for {}: {}", type, id, e.getMessage());
+        }
+    }
+}
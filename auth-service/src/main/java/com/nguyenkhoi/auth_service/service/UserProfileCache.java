@@ -0,0 +1,356 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import com.nguyenkhoi.auth_service.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of user snapshots for authentication and token minting: a Caffeine
+ * near cache on each node in front of a copy shared through Redis.
+ * <p>
+ * A snapshot holds what those paths read: id, username, email, the enabled and locked
+ * flags, role names and a password version, a short digest of the password hash that
+ * tells whether a hash read from the database is the one the snapshot was built with. The
+ * hash itself is never cached. Snapshots are found by id; login does not use them and reads
+ * the row with its role ids by username or email, so everything checked there is current.
+ * <p>
+ * Changes to a user are followed by {@link #invalidate(UUID)}, which runs after commit:
+ * the Redis copy is deleted, a guard key held for {@code invalidation-guard} stops loads
+ * that read the old row from writing it back, and the user id is published on
+ * {@code invalidation-channel} so every node drops its near copy. Near copies also expire
+ * after {@code near-ttl}, which bounds staleness when a message is lost.
+ * <p>
+ * Each node also remembers logins that matched no user for {@code missing-login-ttl}, so
+ * repeated attempts against unknown usernames or emails, as in credential stuffing, are
+ * answered without a query. Creating a user announces its username and email on the same
+ * channel, which drops them from every node's list. Redis failures are logged and fall
+ * through to the database; the cache is disabled with {@code security.user-cache.enabled=false}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserProfileCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int PASSWORD_VERSION_BYTES = 8;
+
+    private static final String USERNAME = "username";
+    private static final String EMAIL = "email";
+    private static final String ENABLED = "enabled";
+    private static final String LOCKED = "locked";
+    private static final String ROLES = "roles";
+    private static final String PASSWORD_VERSION = "pwv";
+
+    private static final String USER_MESSAGE = "user:";
+    private static final String LOGIN_MESSAGE = "login:";
+
+    // KEYS: user, invalidation guard. ARGV: username, email, enabled, locked, roles,
+    // password version, ttl millis.
+    private static final RedisScript<Long> PUT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'username', ARGV[1], 'email', ARGV[2], 'enabled', ARGV[3],
+                'locked', ARGV[4], 'roles', ARGV[5], 'pwv', ARGV[6])
+            redis.call('PEXPIRE', KEYS[1], ARGV[7])
+            return 1
+            """, Long.class);
+
+    // KEYS: user, invalidation guard. ARGV: guard ttl millis.
+    private static final RedisScript<Long> INVALIDATE = RedisScript.of("""
+            redis.call('SET', KEYS[2], '1', 'PX', ARGV[1])
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    private final AppUserRepository appUserRepository;
+    private final RoleCatalog roleCatalog;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<UUID, Snapshot> nearById;
+    private Cache<String, Boolean> missingLogins;
+    private Counter redisLoads;
+    private Counter databaseLoads;
+    private Counter userInvalidations;
+    private Counter loginInvalidations;
+    private Timer invalidationLag;
+
+    @Value("${security.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.user-cache.key-prefix:auth:user:}")
+    private String keyPrefix;
+
+    @Value("${security.user-cache.ttl:PT15M}")
+    private Duration ttl;
+
+    @Value("${security.user-cache.near-ttl:PT1M}")
+    private Duration nearTtl;
+
+    @Value("${security.user-cache.near-max-size:10000}")
+    private long nearMaxSize;
+
+    @Value("${security.user-cache.missing-login-ttl:PT2M}")
+    private Duration missingLoginTtl;
+
+    @Value("${security.user-cache.missing-login-max-size:100000}")
+    private long missingLoginMaxSize;
+
+    @Value("${security.user-cache.invalidation-channel:auth:user-invalidations}")
+    private String channel;
+
+    @Value("${security.user-cache.invalidation-guard:PT30S}")
+    private Duration invalidationGuard;
+
+    public record Snapshot(UUID id, String username, String email, boolean enabled, boolean locked,
+                           List<String> roles, String passwordVersion) {
+
+        public Snapshot {
+            roles = List.copyOf(roles);
+        }
+    }
+
+    @PostConstruct
+    public void initialize() {
+        if (!enabled) {
+            return;
+        }
+        nearById = Caffeine.newBuilder()
+                .maximumSize(nearMaxSize)
+                .expireAfterWrite(nearTtl)
+                .recordStats()
+                .build();
+        missingLogins = Caffeine.newBuilder()
+                .maximumSize(missingLoginMaxSize)
+                .expireAfterWrite(missingLoginTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearById, "auth.user-cache.near");
+        CaffeineCacheMetrics.monitor(meterRegistry, missingLogins, "auth.user-cache.missing-logins");
+
+        redisLoads = Counter.builder("auth.user-cache.loads")
+                .description("Near cache misses answered by the given source")
+                .tag("source", "redis")
+                .register(meterRegistry);
+        databaseLoads = Counter.builder("auth.user-cache.loads")
+                .description("Near cache misses answered by the given source")
+                .tag("source", "database")
+                .register(meterRegistry);
+        Gauge.builder("auth.user-cache.hit-ratio", this, UserProfileCache::hitRatio)
+                .description("Share of user lookups answered by the near cache or Redis")
+                .register(meterRegistry);
+        userInvalidations = Counter.builder("auth.user-cache.invalidations")
+                .description("Invalidations applied to this node's near caches")
+                .tag("type", "user")
+                .register(meterRegistry);
+        loginInvalidations = Counter.builder("auth.user-cache.invalidations")
+                .description("Invalidations applied to this node's near caches")
+                .tag("type", "login")
+                .register(meterRegistry);
+        invalidationLag = Timer.builder("auth.user-cache.invalidation.lag")
+                .description("Time from publishing an invalidation to this node applying it")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    /**
+     * Short digest of a password hash, stored in snapshots in place of the hash. Users
+     * without a password share the empty version.
+     */
+    public static String passwordVersion(String passwordHash) {
+        if (passwordHash == null || passwordHash.isEmpty()) {
+            return "";
+        }
+        return HEX.formatHex(TokenHashUtils.sha256(passwordHash), 0, PASSWORD_VERSION_BYTES);
+    }
+
+    public Optional<Snapshot> findById(UUID userId) {
+        if (!enabled) {
+            return appUserRepository.findById(userId).map(this::snapshotOf);
+        }
+        // Loading inside the cache makes an invalidation that arrives mid-load wait for the
+        // load and then discard it, so a snapshot read before a change is never kept.
+        return Optional.ofNullable(nearById.get(userId, this::load));
+    }
+
+    /**
+     * Whether the login matched no user on a recent attempt on this node.
+     */
+    public boolean isKnownMissing(String login) {
+        return enabled && missingLogins.getIfPresent(login) != null;
+    }
+
+    public void recordMissing(String login) {
+        if (enabled) {
+            missingLogins.put(login, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Drops the user's snapshot everywhere once the current transaction has committed.
+     */
+    public void invalidate(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            try {
+                stringRedisTemplate.execute(INVALIDATE, List.of(userKey(userId), guardKey(userId)),
+                        String.valueOf(invalidationGuard.toMillis()));
+                stringRedisTemplate.convertAndSend(channel, USER_MESSAGE + userId + ":" + System.currentTimeMillis());
+            } catch (Exception e) {
+                // Other nodes keep their near copy until near-ttl; the Redis copy until ttl.
+                log.error("Failed to invalidate cached user {}: {}", userId, e.getMessage());
+            }
+            nearById.invalidate(userId);
+        });
+    }
+
+    /**
+     * Drops a new user's username and email from every node's missing logins once the
+     * current transaction has committed.
+     */
+    public void loginsTaken(String... logins) {
+        if (!enabled) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            for (String login : logins) {
+                try {
+                    stringRedisTemplate.convertAndSend(channel, LOGIN_MESSAGE + login + ":" + System.currentTimeMillis());
+                } catch (Exception e) {
+                    // Other nodes keep answering "not found" for the login until missing-login-ttl.
+                    log.error("Failed to announce new login: {}", e.getMessage());
+                }
+                missingLogins.invalidate(login);
+            }
+        });
+    }
+
+    // Messages are "user:<user id>:<published at millis>" or "login:<login>:<published at millis>".
+    private void onInvalidation(String message) {
+        int separator = message.lastIndexOf(':');
+        long publishedAt;
+        try {
+            publishedAt = Long.parseLong(message, separator + 1, message.length(), 10);
+            if (message.startsWith(USER_MESSAGE)) {
+                nearById.invalidate(UUID.fromString(message.substring(USER_MESSAGE.length(), separator)));
+                userInvalidations.increment();
+            } else if (message.startsWith(LOGIN_MESSAGE)) {
+                missingLogins.invalidate(message.substring(LOGIN_MESSAGE.length(), separator));
+                loginInvalidations.increment();
+            } else {
+                log.warn("Ignoring unknown user invalidation message: {}", message);
+                return;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            log.warn("Ignoring malformed user invalidation message: {}", message);
+            return;
+        }
+        invalidationLag.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+    }
+
+    private Snapshot load(UUID userId) {
+        Optional<Snapshot> cached = read(userId);
+        if (cached.isPresent()) {
+            redisLoads.increment();
+            return cached.get();
+        }
+        databaseLoads.increment();
+        Optional<Snapshot> snapshot = appUserRepository.findById(userId).map(this::snapshotOf);
+        snapshot.ifPresent(this::write);
+        return snapshot.orElse(null);
+    }
+
+    private Snapshot snapshotOf(AppUser user) {
+        return new Snapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                Boolean.TRUE.equals(user.getIsEnabled()),
+                Boolean.TRUE.equals(user.getIsLocked()),
+                roleCatalog.roleNames(user),
+                passwordVersion(user.getPassword()));
+    }
+
+    private Optional<Snapshot> read(UUID userId) {
+        try {
+            Map<Object, Object> entry = stringRedisTemplate.opsForHash().entries(userKey(userId));
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            String roles = (String) entry.get(ROLES);
+            return Optional.of(new Snapshot(
+                    userId,
+                    (String) entry.get(USERNAME),
+                    (String) entry.get(EMAIL),
+                    "1".equals(entry.get(ENABLED)),
+                    "1".equals(entry.get(LOCKED)),
+                    roles == null || roles.isEmpty() ? List.of() : List.of(roles.split(",")),
+                    (String) entry.get(PASSWORD_VERSION)));
+        } catch (Exception e) {
+            log.warn("Failed to read cached user {}: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void write(Snapshot snapshot) {
+        try {
+            stringRedisTemplate.execute(PUT,
+                    List.of(userKey(snapshot.id()), guardKey(snapshot.id())),
+                    snapshot.username(),
+                    snapshot.email(),
+                    snapshot.enabled() ? "1" : "0",
+                    snapshot.locked() ? "1" : "0",
+                    String.join(",", snapshot.roles()),
+                    snapshot.passwordVersion(),
+                    String.valueOf(ttl.toMillis()));
+        } catch (Exception e) {
+            log.warn("Failed to cache user {}: {}", snapshot.id(), e.getMessage());
+        }
+    }
+
+    private double hitRatio() {
+        double hits = nearById.stats().hitCount() + redisLoads.count();
+        double lookups = hits + databaseLoads.count();
+        return lookups == 0 ? Double.NaN : hits / lookups;
+    }
+
+    private String userKey(UUID userId) {
+        return keyPrefix + userId;
+    }
+
+    private String guardKey(UUID userId) {
+        return keyPrefix + "invalidated:" + userId;
+    }
+}
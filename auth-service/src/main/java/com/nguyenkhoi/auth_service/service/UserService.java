@@ -3,6 +3,7 @@ package com.nguyenkhoi.auth_service.service;
 import com.nguyenkhoi.auth_service.dto.request.RegisterRequest;
 import com.nguyenkhoi.auth_service.dto.response.UserResponse;
 import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
 import com.nguyenkhoi.auth_service.entities.UserRole;
 import com.nguyenkhoi.auth_service.exception.AppException;
 import com.nguyenkhoi.auth_service.exception.ErrorCode;
@@ -28,6 +29,8 @@ public class UserService {
     private final UserRoleRepository userRoleRepository;
     private final BCryptPasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final UserProfileCache userProfileCache;
+    private final AccessTokenRevocationService accessTokenRevocationService;
 
     @Transactional
     public UserResponse registerUser(RegisterRequest request) {
@@ -51,6 +54,7 @@ public class UserService {
         user.setRoles(Set.of(userRole));
 
         AppUser savedUser = userRepository.save(user);
+        userProfileCache.loginsTaken(savedUser.getUsername(), savedUser.getEmail());
         return userMapper.toResponse(savedUser);
     }
 
@@ -87,6 +91,8 @@ public class UserService {
         
         user.setIsLocked(true);
         userRepository.save(user);
+        userProfileCache.invalidate(userId);
+        accessTokenRevocationService.revokeUser(userId, RevocationReason.ADMIN_REVOKED);
     }
 
     @Transactional
@@ -96,6 +102,8 @@ public class UserService {
         
         user.setIsEnabled(false);
         userRepository.save(user);
+        userProfileCache.invalidate(userId);
+        accessTokenRevocationService.revokeUser(userId, RevocationReason.ADMIN_REVOKED);
     }
 
     @Transactional
@@ -105,6 +113,7 @@ public class UserService {
         
         user.setIsEnabled(true);
         userRepository.save(user);
+        userProfileCache.invalidate(userId);
     }
 
     @Transactional
@@ -114,6 +123,7 @@ public class UserService {
         
         user.setIsLocked(false);
         userRepository.save(user);
+        userProfileCache.invalidate(userId);
     }
 
     public boolean existsByEmail(String email) {
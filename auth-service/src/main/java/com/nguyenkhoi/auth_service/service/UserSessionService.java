@@ -26,6 +26,8 @@ public class UserSessionService {
 
     private final UserSessionRepository sessionRepository;
     private final SessionMapper sessionMapper;
+    private final SessionRevocationPublisher sessionRevocationPublisher;
+    private final SessionActivityBuffer sessionActivityBuffer;
 
     @Value("${security.max-sessions-per-user}")
     private int maxSessionsPerUser;
@@ -60,19 +62,24 @@ public class UserSessionService {
                 .map(sessionMapper::toResponse);
     }
 
-    @Transactional
+    /**
+     * Records activity on the session. The write is coalesced by {@link SessionActivityBuffer}
+     * and reaches the database within {@code security.session-activity-flush-interval}.
+     */
     public void updateLastActive(UUID sessionId) {
-        sessionRepository.updateLastActive(sessionId, Instant.now());
+        sessionActivityBuffer.record(sessionId);
     }
 
     @Transactional
     public void revokeSession(UUID sessionId) {
         sessionRepository.revokeSession(sessionId);
+        sessionRevocationPublisher.sessionRevoked(sessionId);
     }
 
     @Transactional
     public void revokeAllUserSessions(UUID userId) {
         sessionRepository.revokeAllUserSessions(userId);
+        sessionRevocationPublisher.userSessionsRevoked(userId);
     }
 
     public List<SessionResponse> getActiveSessionsForUser(UUID userId) {
@@ -98,31 +105,15 @@ public class UserSessionService {
         return session.getLastActive().isAfter(expirationThreshold);
     }
 
-    @Transactional
-    public void cleanupInactiveSessions() {
-        Instant threshold = Instant.now().minus(sessionTimeoutHours, ChronoUnit.HOURS);
-        List<UserSession> inactiveSessions = sessionRepository.findInactiveSessions(threshold);
-        
-        for (UserSession session : inactiveSessions) {
-            session.setRevoked(true);
-            sessionRepository.save(session);
-        }
-    }
-
+    /**
+     * Makes room for one more session by revoking the user's least recently active sessions
+     * beyond {@code security.max-sessions-per-user - 1}, in a single UPDATE.
+     */
     @Transactional
     public void cleanupExcessiveSessions(UUID userId) {
-        long activeSessionCount = sessionRepository.countActiveSessionsByUserId(userId);
-        
-        if (activeSessionCount >= maxSessionsPerUser) {
-            List<UserSession> activeSessions = sessionRepository.findActiveSessionsByUserId(userId);
-            
-            activeSessions.stream()
-                    .sorted((s1, s2) -> s1.getLastActive().compareTo(s2.getLastActive()))
-                    .limit(activeSessionCount - maxSessionsPerUser + 1)
-                    .forEach(session -> {
-                        session.setRevoked(true);
-                        sessionRepository.save(session);
-                    });
+        List<UUID> revoked = sessionRepository.revokeExcessActiveSessions(userId, Math.max(0, maxSessionsPerUser - 1));
+        for (UUID sessionId : revoked) {
+            sessionRevocationPublisher.sessionRevoked(sessionId);
         }
     }
 
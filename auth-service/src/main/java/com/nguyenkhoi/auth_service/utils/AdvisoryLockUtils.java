@@ -0,0 +1,41 @@
+package com.nguyenkhoi.auth_service.utils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class AdvisoryLockUtils {
+
+    /**
+     * Runs the task while holding the PostgreSQL session-level advisory lock {@code lockKey},
+     * so that only one node in the cluster runs it at a time. The lock lives on a connection
+     * of its own, leaving the task free to commit in as many transactions as it likes.
+     * Returns {@code false} without running the task when another session holds the lock.
+     */
+    public static boolean runExclusively(DataSource dataSource, long lockKey, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!call(connection, "SELECT pg_try_advisory_lock(?)", lockKey)) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                call(connection, "SELECT pg_advisory_unlock(?)", lockKey);
+            }
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to take advisory lock " + lockKey, e);
+        }
+    }
+
+    private static boolean call(Connection connection, String sql, long lockKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, lockKey);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.nguyenkhoi.auth_service.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+
+/**
+ * Maps the key types the auth-service can sign with (RSA, P-256, Ed25519) to their JWS
+ * algorithm and to Nimbus signers/verifiers, which are thread-safe and meant to be reused.
+ */
+public class JwkUtils {
+
+    public static JWSAlgorithm algorithmFor(JWK jwk) {
+        if (jwk instanceof RSAKey) {
+            return JWSAlgorithm.RS256;
+        }
+        if (jwk instanceof ECKey ecKey && Curve.P_256.equals(ecKey.getCurve())) {
+            return JWSAlgorithm.ES256;
+        }
+        if (jwk instanceof OctetKeyPair okp && Curve.Ed25519.equals(okp.getCurve())) {
+            return JWSAlgorithm.EdDSA;
+        }
+        throw new IllegalArgumentException("Unsupported JWT key: " + jwk.getKeyType() + " " + jwk.getKeyID());
+    }
+
+    public static JWSSigner signerFor(JWK jwk) throws JOSEException {
+        if (jwk instanceof RSAKey rsaKey) {
+            return new RSASSASigner(rsaKey);
+        }
+        if (jwk instanceof ECKey ecKey) {
+            return new ECDSASigner(ecKey);
+        }
+        if (jwk instanceof OctetKeyPair okp) {
+            return new Ed25519Signer(okp);
+        }
+        throw new IllegalArgumentException("Unsupported JWT signing key: " + jwk.getKeyType());
+    }
+
+    public static JWSVerifier verifierFor(JWK jwk) throws JOSEException {
+        if (jwk instanceof RSAKey rsaKey) {
+            return new RSASSAVerifier(rsaKey.toRSAPublicKey());
+        }
+        if (jwk instanceof ECKey ecKey) {
+            return new ECDSAVerifier(ecKey.toPublicJWK());
+        }
+        if (jwk instanceof OctetKeyPair okp) {
+            return new Ed25519Verifier(okp.toPublicJWK());
+        }
+        throw new IllegalArgumentException("Unsupported JWT verification key: " + jwk.getKeyType());
+    }
+}
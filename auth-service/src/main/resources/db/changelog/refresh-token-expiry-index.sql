@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-1 runInTransaction:false
+-- Lets the expired-token reaper find each batch without scanning the table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refresh_token_expiry ON refresh_token (expiry_at);
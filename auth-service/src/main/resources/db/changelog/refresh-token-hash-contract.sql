@@ -0,0 +1,16 @@
+-- liquibase formatted sql
+
+-- Drops the raw refresh token columns kept by refresh-token-hash.sql. Include it in
+-- db.changelog-master.yaml in the release after that changelog has been applied everywhere
+-- and no instance of the previous version is left to roll back to.
+
+-- changeset agent:1792195200000-6
+-- Hash rows a rolled-back instance wrote after the backfill
+UPDATE refresh_token SET token_hash = sha256(convert_to(token, 'UTF8')) WHERE token_hash IS NULL;
+UPDATE refresh_token SET replaced_by_hash = sha256(convert_to(replaced_by, 'UTF8'))
+WHERE replaced_by IS NOT NULL AND replaced_by_hash IS NULL;
+ALTER TABLE refresh_token ALTER COLUMN token_hash SET NOT NULL;
+ALTER TABLE refresh_token DROP CONSTRAINT uc_refresh_token_token;
+DROP INDEX idx_refresh_token_token;
+ALTER TABLE refresh_token DROP COLUMN token;
+ALTER TABLE refresh_token DROP COLUMN replaced_by;
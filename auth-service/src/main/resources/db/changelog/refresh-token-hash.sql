@@ -0,0 +1,26 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792195200000-1
+ALTER TABLE refresh_token ADD COLUMN token_hash BYTEA;
+ALTER TABLE refresh_token ADD COLUMN replaced_by_hash BYTEA;
+
+-- changeset agent:1792195200000-2
+-- Hash the raw identifiers of existing rows in place; clients keep using the tokens they hold
+UPDATE refresh_token SET token_hash = sha256(convert_to(token, 'UTF8'));
+UPDATE refresh_token SET replaced_by_hash = sha256(convert_to(replaced_by, 'UTF8')) WHERE replaced_by IS NOT NULL;
+
+-- changeset agent:1792195200000-3
+ALTER TABLE refresh_token
+    ADD CONSTRAINT chk_refresh_token_hash_length CHECK (octet_length(token_hash) = 32);
+ALTER TABLE refresh_token
+    ADD CONSTRAINT chk_refresh_token_replaced_by_hash_length CHECK (octet_length(replaced_by_hash) = 32);
+
+-- changeset agent:1792195200000-4
+-- Covers validation (revoked, expiry) and rotation (user, chain) lookups with index-only scans
+CREATE UNIQUE INDEX uq_refresh_token_hash ON refresh_token (token_hash) INCLUDE (revoked, expiry_at, user_id, chain_id);
+
+-- changeset agent:1792195200000-5
+-- New rows only carry the hashes. Until refresh-token-hash-contract.sql runs in the next
+-- release, the raw columns keep their data and token_hash stays nullable, so the previous
+-- version can still be rolled back to and write rows.
+ALTER TABLE refresh_token ALTER COLUMN token DROP NOT NULL;
@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-11 runInTransaction:false
+-- Adds session_id to the covering index, so the state of a replayed token names its session
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_refresh_token_hash_state
+    ON refresh_token (token_hash) INCLUDE (revoked, expiry_at, user_id, chain_id, session_id);
+DROP INDEX CONCURRENTLY IF EXISTS uq_refresh_token_hash;
@@ -0,0 +1,27 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-4 runInTransaction:false
+-- Active tokens of a user, newest first: listing, counting and the per-user token cap
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refresh_token_user_active ON refresh_token (user_id, issued_at DESC, id DESC) WHERE revoked = false;
+
+-- changeset agent:1792800000000-5 runInTransaction:false
+-- The live token of a chain, and chain revocation, which only touches live tokens
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_refresh_token_chain_active ON refresh_token (chain_id) WHERE revoked = false;
+
+-- changeset agent:1792800000000-6 runInTransaction:false
+-- Revocations of a chain or a user, newest first; supersede the single-column indexes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_revoked_chain_revoked_at ON revoked_token (chain_id, revoked_at DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_revoked_user_revoked_at ON revoked_token (user_id, revoked_at DESC);
+
+-- changeset agent:1792800000000-7 runInTransaction:false
+DROP INDEX CONCURRENTLY IF EXISTS idx_revoked_chain;
+DROP INDEX CONCURRENTLY IF EXISTS idx_revoked_user;
+
+-- changeset agent:1792800000000-8 runInTransaction:false
+-- Audit queries by revocation time and by reason
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_revoked_revoked_at ON revoked_token (revoked_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_revoked_reason ON revoked_token (revocation_reason, revoked_at DESC);
+
+-- changeset agent:1792800000000-9 runInTransaction:false
+-- Superseded by idx_session_active_last_active, which the inactive-session sweep reads
+DROP INDEX CONCURRENTLY IF EXISTS idx_session_active;
@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-10 runInTransaction:false
+-- Role ids of one user, read on every access token; the primary key leads with role_id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_roles_user ON user_roles (user_id, role_id);
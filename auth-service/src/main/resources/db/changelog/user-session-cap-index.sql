@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-3 runInTransaction:false
+-- Per-user active sessions by recency, read by the session cap on every login
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_session_user_active ON user_session (user_id, last_active) WHERE revoked = false;
@@ -0,0 +1,5 @@
+-- liquibase formatted sql
+
+-- changeset agent:1792800000000-2 runInTransaction:false
+-- Keyset order of the inactive-session sweeper; revoked sessions are never visited again
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_session_active_last_active ON user_session (last_active, id) WHERE revoked = false;
@@ -0,0 +1,297 @@
+package com.nguyenkhoi.auth_service.repository;
+
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import jakarta.persistence.EntityManager;
+import org.assertj.core.api.SoftAssertions;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs every repository query against seeded tables through {@code EXPLAIN (ANALYZE, BUFFERS)}
+ * and fails on any sequential scan.
+ * <p>
+ * The SQL is the statement Hibernate actually sent, captured with a {@link StatementInspector};
+ * its JDBC placeholders are filled with the arguments of the call, listed in the order they
+ * appear in the statement.
+ */
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.nguyenkhoi.auth_service.repository.RepositoryQueryPlanTest$CapturedStatements")
+class RepositoryQueryPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 2000;
+    private static final int ROWS_PER_USER = 10;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private UUID userId;
+    private UUID sessionId;
+    private String chainId;
+    private byte[] tokenHash;
+    private String jti;
+    private final Instant now = Instant.now();
+
+    public static class CapturedStatements implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        execute("""
+                INSERT INTO app_user (id, username, email, is_enabled, is_locked, created_at)
+                SELECT gen_random_uuid(), 'plan_' || g, 'plan_' || g || '@example.com', true, false, now()
+                FROM generate_series(1, %d) g
+                """.formatted(USERS));
+        execute("""
+                INSERT INTO user_session (id, user_id, device_info, ip_address, user_agent, created_at, last_active, revoked)
+                SELECT gen_random_uuid(), u.id, 'Linux Desktop', '10.0.' || (s %% 4) || '.1', 'plan',
+                       now() - interval '30 days', now() - random() * interval '30 days', s %% 3 = 0
+                FROM app_user u CROSS JOIN generate_series(1, %d) s
+                """.formatted(ROWS_PER_USER));
+        execute("""
+                INSERT INTO refresh_token (user_id, token_hash, chain_id, issued_at, expiry_at, revoked, ip_address, user_agent)
+                SELECT u.id, sha256(convert_to(u.id || ':' || s, 'UTF8')), u.id || ':' || (s / 3),
+                       now() - s * interval '1 hour', now() + (s - 3) * interval '1 day', s %% 3 <> 0, '10.0.0.1', 'plan'
+                FROM app_user u CROSS JOIN generate_series(1, %d) s
+                """.formatted(ROWS_PER_USER));
+        execute("""
+                INSERT INTO revoked_token (jti, user_id, chain_id, revoked_at, expiry_at, revocation_reason)
+                SELECT 'jti-' || u.id || '-' || s, u.id, u.id || ':' || (s / 3),
+                       now() - random() * interval '30 days', now() + (s - 3) * interval '1 day',
+                       CASE WHEN s = 1 AND random() < 0.05 THEN 'SECURITY_BREACH' ELSE 'LOGOUT' END
+                FROM app_user u CROSS JOIN generate_series(1, %d) s
+                """.formatted(ROWS_PER_USER));
+        execute("""
+                INSERT INTO user_roles (user_id, role_id)
+                SELECT u.id, r.id FROM app_user u CROSS JOIN user_role r
+                WHERE r.name = 'USER' OR u.username LIKE 'plan_1%'
+                """);
+        execute("ANALYZE app_user, user_session, refresh_token, revoked_token, user_roles");
+
+        userId = UUID.fromString(queryForString("SELECT id FROM app_user WHERE username = 'plan_1'"));
+        sessionId = UUID.fromString(queryForString(
+                "SELECT id FROM user_session WHERE user_id = '" + userId + "' AND revoked = false LIMIT 1"));
+        chainId = userId + ":1";
+        tokenHash = TokenHashUtils.sha256(userId + ":4");
+        jti = "jti-" + userId + "-2";
+        CapturedStatements.STATEMENTS.clear();
+    }
+
+    @Test
+    void refreshTokenQueriesUseIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+        Instant expiredBefore = now.minus(1, ChronoUnit.DAYS);
+        byte[] successorHash = TokenHashUtils.sha256(UUID.randomUUID().toString());
+
+        assertIndexed(softly, "findByTokenHash", () -> refreshTokenRepository.findByTokenHash(tokenHash), tokenHash);
+        assertIndexed(softly, "findStateByTokenHash", () -> refreshTokenRepository.findStateByTokenHash(tokenHash), tokenHash);
+        assertIndexed(softly, "findByChainId", () -> refreshTokenRepository.findByChainId(chainId), chainId);
+        assertIndexed(softly, "findByUser",
+                () -> refreshTokenRepository.findByUser(appUserRepository.getReferenceById(userId)), userId);
+        assertIndexed(softly, "findByUserIdAndRevokedFalse",
+                () -> refreshTokenRepository.findByUserIdAndRevokedFalse(userId), userId);
+        assertIndexed(softly, "findActiveTokensByChainId",
+                () -> refreshTokenRepository.findActiveTokensByChainId(chainId), chainId);
+        assertIndexed(softly, "findActiveTokensByUserId",
+                () -> refreshTokenRepository.findActiveTokensByUserId(userId), userId);
+        assertIndexed(softly, "countActiveTokensByUserId",
+                () -> refreshTokenRepository.countActiveTokensByUserId(userId), userId);
+        assertIndexed(softly, "revokeExcessActiveTokens",
+                () -> refreshTokenRepository.revokeExcessActiveTokens(userId, 1), userId, 1);
+        assertIndexed(softly, "rotateToken",
+                () -> refreshTokenRepository.rotateToken(tokenHash, successorHash, now), now, tokenHash, successorHash);
+        assertIndexed(softly, "revokeTokensByChainId",
+                () -> refreshTokenRepository.revokeTokensByChainId(chainId), chainId);
+        assertIndexed(softly, "revokeAllUserTokens",
+                () -> refreshTokenRepository.revokeAllUserTokens(userId), userId);
+        assertIndexed(softly, "deleteExpiredTokens",
+                () -> refreshTokenRepository.deleteExpiredTokens(expiredBefore, 100), expiredBefore, 100);
+
+        softly.assertAll();
+    }
+
+    @Test
+    void userSessionQueriesUseIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+        Instant inactiveBefore = now.minus(29, ChronoUnit.DAYS);
+
+        assertIndexed(softly, "findByUser",
+                () -> userSessionRepository.findByUser(appUserRepository.getReferenceById(userId)), userId);
+        assertIndexed(softly, "findByUserIdAndRevokedFalse",
+                () -> userSessionRepository.findByUserIdAndRevokedFalse(userId), userId);
+        assertIndexed(softly, "findActiveSessionsByUserId",
+                () -> userSessionRepository.findActiveSessionsByUserId(userId), userId);
+        assertIndexed(softly, "findActiveSessionsByUserAndIp",
+                () -> userSessionRepository.findActiveSessionsByUserAndIp(userId, "10.0.1.1"), userId, "10.0.1.1");
+        assertIndexed(softly, "countActiveSessionsByUserId",
+                () -> userSessionRepository.countActiveSessionsByUserId(userId), userId);
+        assertIndexed(softly, "revokeSession",
+                () -> userSessionRepository.revokeSession(sessionId), sessionId);
+        assertIndexed(softly, "revokeExcessActiveSessions",
+                () -> userSessionRepository.revokeExcessActiveSessions(userId, 1), userId, 1);
+        assertIndexed(softly, "revokeAllUserSessions",
+                () -> userSessionRepository.revokeAllUserSessions(userId), userId);
+        assertIndexed(softly, "revokeInactiveSessions",
+                () -> userSessionRepository.revokeInactiveSessions(inactiveBefore, Instant.EPOCH, new UUID(0L, 0L), 100),
+                inactiveBefore, Instant.EPOCH, new UUID(0L, 0L), 100);
+
+        softly.assertAll();
+    }
+
+    @Test
+    void appUserQueriesUseIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+
+        assertIndexed(softly, "findCredentialsByLogin by username",
+                () -> appUserRepository.findCredentialsByLogin("plan_1"), "plan_1", "plan_1", "plan_1");
+        assertIndexed(softly, "findCredentialsByLogin by email",
+                () -> appUserRepository.findCredentialsByLogin("plan_1@example.com"),
+                "plan_1@example.com", "plan_1@example.com", "plan_1@example.com");
+        assertIndexed(softly, "findCredentialsByLogin unknown",
+                () -> appUserRepository.findCredentialsByLogin("nobody@example.com"),
+                "nobody@example.com", "nobody@example.com", "nobody@example.com");
+
+        softly.assertAll();
+    }
+
+    @Test
+    void userRoleQueriesUseIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+
+        assertIndexed(softly, "findRoleIdsByUserId", () -> userRoleRepository.findRoleIdsByUserId(userId), userId);
+
+        softly.assertAll();
+    }
+
+    @Test
+    void revokedTokenQueriesUseIndexes() {
+        SoftAssertions softly = new SoftAssertions();
+        Instant expiredBefore = now.minus(1, ChronoUnit.DAYS);
+        Instant windowStart = now.minus(2, ChronoUnit.HOURS);
+
+        assertIndexed(softly, "existsByJti", () -> revokedTokenRepository.existsByJti(jti), jti, 1);
+        assertIndexed(softly, "findByChainId", () -> revokedTokenRepository.findByChainId(chainId), chainId);
+        assertIndexed(softly, "findByUser_IdOrderByRevokedAtDesc",
+                () -> revokedTokenRepository.findByUser_IdOrderByRevokedAtDesc(userId), userId);
+        assertIndexed(softly, "findByRevocationReason",
+                () -> revokedTokenRepository.findByRevocationReason(RevocationReason.SECURITY_BREACH),
+                RevocationReason.SECURITY_BREACH);
+        assertIndexed(softly, "findByChainIdOrderByRevokedAtDesc",
+                () -> revokedTokenRepository.findByChainIdOrderByRevokedAtDesc(chainId), chainId);
+        assertIndexed(softly, "countRevokedTokensByUserId",
+                () -> revokedTokenRepository.countRevokedTokensByUserId(userId), userId);
+        assertIndexed(softly, "findTokensRevokedBetween",
+                () -> revokedTokenRepository.findTokensRevokedBetween(windowStart, now), windowStart, now);
+        assertIndexed(softly, "deleteExpiredTokens",
+                () -> revokedTokenRepository.deleteExpiredTokens(expiredBefore, 100), expiredBefore, 100);
+
+        softly.assertAll();
+    }
+
+    private void assertIndexed(SoftAssertions softly, String query, Runnable call, Object... parameters) {
+        CapturedStatements.STATEMENTS.clear();
+        call.run();
+        List<String> statements = List.copyOf(CapturedStatements.STATEMENTS);
+        if (statements.isEmpty()) {
+            softly.fail("%s sent no SQL", query);
+            return;
+        }
+
+        String sql = bind(statements.getLast(), parameters);
+        String plan = String.join("\n", queryForLines("EXPLAIN (ANALYZE, BUFFERS) " + sql));
+        softly.assertThat(plan)
+                .as("%s%n%s%n%s", query, sql, plan)
+                .doesNotContain("Seq Scan");
+    }
+
+    private static String bind(String sql, Object... parameters) {
+        StringBuilder bound = new StringBuilder(sql.length() + 64 * parameters.length);
+        int next = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c != '?') {
+                bound.append(c);
+                continue;
+            }
+            if (next == parameters.length) {
+                throw new IllegalArgumentException("More placeholders than parameters in: " + sql);
+            }
+            bound.append(literal(parameters[next++]));
+        }
+        if (next != parameters.length) {
+            throw new IllegalArgumentException("Fewer placeholders than parameters in: " + sql);
+        }
+        return bound.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        if (value instanceof Instant instant) {
+            return "'" + instant.truncatedTo(ChronoUnit.MICROS) + "'";
+        }
+        if (value instanceof byte[] bytes) {
+            return "'\\x" + HexFormat.of().formatHex(bytes) + "'::bytea";
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    private String queryForString(String sql) {
+        return queryForLines(sql).getFirst();
+    }
+
+    private List<String> queryForLines(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<String> lines = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(sql)) {
+                while (result.next()) {
+                    lines.add(result.getString(1));
+                }
+            }
+            return lines;
+        });
+    }
+
+    private void execute(String sql) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+}
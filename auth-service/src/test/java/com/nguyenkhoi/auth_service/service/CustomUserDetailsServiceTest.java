@@ -0,0 +1,118 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CustomUserDetailsServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private UserProfileCache userProfileCache;
+    private CustomUserDetailsService userDetailsService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        RoleCatalog roleCatalog = new RoleCatalog(userRoleRepository);
+        roleCatalog.refresh();
+        userProfileCache = mock(UserProfileCache.class);
+        userDetailsService = new CustomUserDetailsService(appUserRepository, userProfileCache, roleCatalog);
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void loginReadsCredentialsAndRolesInOneStatement() {
+        AppUser user = saveUser("USER", "ADMIN");
+        entityManager.clear();
+
+        statistics.clear();
+        UserDetails details = userDetailsService.loadUserByUsername(user.getUsername());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(details.getPassword()).isEqualTo(user.getPassword());
+        assertThat(details.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        verify(userProfileCache).isKnownMissing(user.getUsername());
+        verifyNoMoreInteractions(userProfileCache);
+    }
+
+    @Test
+    void loginByEmailFindsTheUser() {
+        AppUser user = saveUser("USER");
+
+        UserDetails details = userDetailsService.loadUserByUsername(user.getEmail());
+
+        assertThat(details.getUsername()).isEqualTo(user.getUsername());
+    }
+
+    @Test
+    void usernameWinsOverAnotherUsersEmail() {
+        AppUser byEmail = saveUser("USER");
+        AppUser byUsername = saveUser("ADMIN");
+        byUsername.setUsername(byEmail.getEmail());
+        appUserRepository.saveAndFlush(byUsername);
+
+        UserDetails details = userDetailsService.loadUserByUsername(byEmail.getEmail());
+
+        assertThat(details.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void userWithoutRolesHasNoAuthorities() {
+        AppUser user = saveUser();
+
+        assertThat(userDetailsService.loadUserByUsername(user.getUsername()).getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void lockedAndDisabledFlagsAreReadFromTheRow() {
+        AppUser user = saveUser("USER");
+        user.setIsLocked(true);
+        user.setIsEnabled(false);
+        appUserRepository.saveAndFlush(user);
+
+        UserDetails details = userDetailsService.loadUserByUsername(user.getUsername());
+
+        assertThat(details.isAccountNonLocked()).isFalse();
+        assertThat(details.isEnabled()).isFalse();
+    }
+
+    @Test
+    void unknownLoginIsRecordedAsMissing() {
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("nobody@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+
+        verify(userProfileCache).recordMissing("nobody@example.com");
+    }
+
+    @Test
+    void knownMissingLoginIsRejectedWithoutQuery() {
+        when(userProfileCache.isKnownMissing("nobody@example.com")).thenReturn(true);
+
+        statistics.clear();
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("nobody@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
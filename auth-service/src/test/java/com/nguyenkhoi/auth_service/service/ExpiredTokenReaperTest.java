@@ -0,0 +1,152 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.RevokedTokenRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiredTokenReaperTest extends PostgresIntegrationTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final long LOCK_KEY = 7261001L;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredTokenReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reaper = new ExpiredTokenReaper(refreshTokenRepository, revokedTokenRepository, dataSource, meterRegistry);
+        ReflectionTestUtils.setField(reaper, "enabled", true);
+        ReflectionTestUtils.setField(reaper, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(reaper, "rowsPerSecond", 1_000_000);
+        ReflectionTestUtils.setField(reaper, "maxRunTime", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(reaper, "lockKey", LOCK_KEY);
+        reaper.registerMetrics();
+    }
+
+    @Test
+    void expiredRowsAreDeletedAcrossBatches() {
+        AppUser user = saveUser();
+        seedRefreshTokens(user, 25, "now() - interval '1 day'");
+        seedRefreshTokens(user, 4, "now() + interval '1 day'");
+        seedRevokedTokens(user, 12, "now() - interval '1 day'");
+        seedRevokedTokens(user, 3, "now() + interval '1 day'");
+
+        reaper.reap();
+
+        assertThat(count("SELECT count(*) FROM refresh_token WHERE user_id = '" + user.getId() + "'")).isEqualTo(4);
+        assertThat(count("SELECT count(*) FROM revoked_token WHERE user_id = '" + user.getId() + "'")).isEqualTo(3);
+        assertThat(meterRegistry.get("auth.token-reaper.batches").tag("table", "refresh_token").counter().count())
+                .isEqualTo(3);
+        assertThat(meterRegistry.get("auth.token-reaper.batches").tag("table", "revoked_token").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("auth.token-reaper.last-run.deleted").gauge().value()).isEqualTo(37);
+    }
+
+    @Test
+    void runStopsAtTheDeadline() {
+        AppUser user = saveUser();
+        seedRefreshTokens(user, 25, "now() - interval '1 day'");
+        seedRevokedTokens(user, 12, "now() - interval '1 day'");
+        // The first batch has to wait half a second for the rate limit, well past the deadline
+        ReflectionTestUtils.setField(reaper, "rowsPerSecond", 2 * BATCH_SIZE);
+        ReflectionTestUtils.setField(reaper, "maxRunTime", Duration.ofMillis(100));
+
+        reaper.reap();
+
+        assertThat(count("SELECT count(*) FROM refresh_token WHERE user_id = '" + user.getId() + "'"))
+                .isEqualTo(25 - BATCH_SIZE);
+        assertThat(count("SELECT count(*) FROM revoked_token WHERE user_id = '" + user.getId() + "'")).isEqualTo(12);
+    }
+
+    @Test
+    void runIsSkippedWhileAnotherNodeHoldsTheLock() throws Exception {
+        AppUser user = saveUser();
+        seedRefreshTokens(user, 25, "now() - interval '1 day'");
+
+        try (Connection otherNode = dataSource.getConnection()) {
+            assertThat(lock(otherNode, "SELECT pg_try_advisory_lock(?)")).isTrue();
+            try {
+                reaper.reap();
+            } finally {
+                lock(otherNode, "SELECT pg_advisory_unlock(?)");
+            }
+        }
+
+        assertThat(count("SELECT count(*) FROM refresh_token WHERE user_id = '" + user.getId() + "'")).isEqualTo(25);
+        assertThat(meterRegistry.get("auth.token-reaper.skipped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("auth.token-reaper.batches").counters()).isEmpty();
+    }
+
+    private void seedRefreshTokens(AppUser user, int rows, String expiryAt) {
+        execute("""
+                INSERT INTO refresh_token (user_id, token_hash, chain_id, issued_at, expiry_at, revoked)
+                SELECT '%s', sha256(convert_to(gen_random_uuid()::text, 'UTF8')), gen_random_uuid()::text,
+                       now() - interval '8 days', %s, false
+                FROM generate_series(1, %d)
+                """.formatted(user.getId(), expiryAt, rows));
+    }
+
+    private void seedRevokedTokens(AppUser user, int rows, String expiryAt) {
+        execute("""
+                INSERT INTO revoked_token (jti, user_id, chain_id, revoked_at, expiry_at, revocation_reason)
+                SELECT gen_random_uuid()::text, '%s', gen_random_uuid()::text, now() - interval '2 days', %s, 'LOGOUT'
+                FROM generate_series(1, %d)
+                """.formatted(user.getId(), expiryAt, rows));
+    }
+
+    private static boolean lock(Connection connection, String sql) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private long count(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+                result.next();
+                return result.getLong(1);
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+}
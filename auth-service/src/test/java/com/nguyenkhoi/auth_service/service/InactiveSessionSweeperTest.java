@@ -0,0 +1,130 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InactiveSessionSweeperTest extends PostgresIntegrationTest {
+
+    private static final int BATCH_SIZE = 10;
+    private static final int TIMEOUT_HOURS = 24;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InactiveSessionSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new InactiveSessionSweeper(userSessionRepository, dataSource, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "sessionTimeoutHours", TIMEOUT_HOURS);
+        ReflectionTestUtils.setField(sweeper, "enabled", true);
+        ReflectionTestUtils.setField(sweeper, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(sweeper, "maxRunTime", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(sweeper, "lockKey", 7261002L);
+        sweeper.registerMetrics();
+    }
+
+    @Test
+    void cursorMovesForwardAcrossBatches() {
+        AppUser user = saveUser();
+        // Sessions sharing a last_active are ordered by id, so the cursor has to use both
+        seedSessions(user, 12, "now() - interval '3 days'");
+        seedSessions(user, 13, "now() - interval '2 days' - g * interval '1 minute'");
+        Instant threshold = Instant.now().minus(TIMEOUT_HOURS, ChronoUnit.HOURS);
+
+        List<UserSessionRepository.SweepBatch> batches = new ArrayList<>();
+        Instant afterLastActive = Instant.EPOCH;
+        UUID afterId = new UUID(0L, 0L);
+        Optional<UserSessionRepository.SweepBatch> batch;
+        while ((batch = userSessionRepository.revokeInactiveSessions(threshold, afterLastActive, afterId, BATCH_SIZE))
+                .isPresent()) {
+            batches.add(batch.get());
+            afterLastActive = batch.get().getLastActive();
+            afterId = batch.get().getLastId();
+        }
+
+        assertThat(batches).extracting(UserSessionRepository.SweepBatch::getRevoked).containsExactly(10L, 10L, 5L);
+        for (int i = 1; i < batches.size(); i++) {
+            UserSessionRepository.SweepBatch previous = batches.get(i - 1);
+            UserSessionRepository.SweepBatch current = batches.get(i);
+            assertThat(current.getLastActive().isAfter(previous.getLastActive())
+                    || (current.getLastActive().equals(previous.getLastActive())
+                    && current.getLastId().compareTo(previous.getLastId()) > 0)).isTrue();
+        }
+    }
+
+    @Test
+    void inactiveSessionsAreRevokedExactlyOnce() {
+        AppUser user = saveUser();
+        seedSessions(user, 25, "now() - interval '2 days' - g * interval '1 minute'");
+        seedSessions(user, 4, "now() - interval '1 hour'");
+
+        sweeper.sweep();
+
+        assertThat(count("SELECT count(*) FROM user_session WHERE user_id = '" + user.getId() + "' AND revoked"))
+                .isEqualTo(25);
+        assertThat(userSessionRepository.countActiveSessionsByUserId(user.getId())).isEqualTo(4);
+        assertThat(meterRegistry.get("auth.session-sweeper.revoked").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("auth.session-sweeper.batches").counter().count()).isEqualTo(3);
+
+        sweeper.sweep();
+
+        assertThat(meterRegistry.get("auth.session-sweeper.revoked").counter().count()).isEqualTo(25);
+        assertThat(meterRegistry.get("auth.session-sweeper.last-run.revoked").gauge().value()).isZero();
+        assertThat(userSessionRepository.countActiveSessionsByUserId(user.getId())).isEqualTo(4);
+    }
+
+    private void seedSessions(AppUser user, int rows, String lastActive) {
+        execute("""
+                INSERT INTO user_session (id, user_id, device_info, ip_address, user_agent, created_at, last_active, revoked)
+                SELECT gen_random_uuid(), '%s', 'Linux Desktop', '10.0.0.1', 'test', now() - interval '7 days', %s, false
+                FROM generate_series(1, %d) g
+                """.formatted(user.getId(), lastActive, rows));
+    }
+
+    private long count(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+                result.next();
+                return result.getLong(1);
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+}
@@ -0,0 +1,153 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.config.JwtKeyConfig;
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.exception.AppException;
+import com.nguyenkhoi.auth_service.exception.ErrorCode;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Loads keys through {@link JwtKeyConfig} from JWK files, as configured in production, and
+ * signs and verifies with the resulting {@link JwtTokenService}.
+ */
+class JwtTokenServiceTest {
+
+    @TempDir
+    Path keyDir;
+
+    private JWK rsaKey;
+    private JWK ecKey;
+    private JWK edKey;
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        rsaKey = new RSAKeyGenerator(2048).keyID("rsa-1").generate();
+        ecKey = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        edKey = new OctetKeyPairGenerator(Curve.Ed25519).keyID("ed-1").generate();
+
+        user = new AppUser();
+        user.setId(UUID.randomUUID());
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+    }
+
+    @Test
+    void es256KeySignsAndVerifies() throws Exception {
+        JwtTokenService service = service("ES256", ecKey);
+
+        String token = service.generateAccessToken(user, UUID.randomUUID().toString());
+
+        assertThat(SignedJWT.parse(token).getHeader().getAlgorithm()).isEqualTo(JWSAlgorithm.ES256);
+        assertThat(SignedJWT.parse(token).getHeader().getKeyID()).isEqualTo("ec-1");
+        assertThat(service.extractUserId(service.validateToken(token))).isEqualTo(user.getId());
+    }
+
+    @Test
+    void eddsaKeySignsAndVerifies() throws Exception {
+        JwtTokenService service = service("EdDSA", edKey);
+
+        String token = service.generateAccessToken(user, UUID.randomUUID().toString());
+
+        assertThat(SignedJWT.parse(token).getHeader().getAlgorithm()).isEqualTo(JWSAlgorithm.EdDSA);
+        assertThat(SignedJWT.parse(token).getHeader().getKeyID()).isEqualTo("ed-1");
+        assertThat(service.extractUserId(service.validateToken(token))).isEqualTo(user.getId());
+    }
+
+    @Test
+    void algorithmMustMatchTheSigningKey() {
+        assertThatThrownBy(() -> service("RS256", ecKey))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.JWT_EXCEPTION));
+    }
+
+    @Test
+    void mixedKeySetVerifiesEachAlgorithmByKid() throws Exception {
+        JwtTokenService rsaSigner = service("RS256", rsaKey);
+        JwtTokenService ecSigner = service("ES256", ecKey);
+        JwtTokenService edSigner = service("EdDSA", edKey);
+        JwtTokenService verifier = service("EdDSA", edKey, write("rsa.json", rsaKey.toPublicJWK().toJSONString()),
+                write("keys.json", new JWKSet(List.of(ecKey.toPublicJWK())).toString()));
+
+        for (JwtTokenService signer : List.of(rsaSigner, ecSigner, edSigner)) {
+            String token = signer.generateAccessToken(user, UUID.randomUUID().toString());
+            JWTClaimsSet claims = verifier.validateToken(token);
+            assertThat(verifier.extractUserId(claims)).isEqualTo(user.getId());
+        }
+    }
+
+    @Test
+    void tokenSignedByAnotherKeyUnderAKnownKidIsRejected() throws Exception {
+        JWK impostor = new ECKeyGenerator(Curve.P_256).keyID("ec-1").generate();
+        JwtTokenService verifier = service("EdDSA", edKey, write("ec.json", ecKey.toPublicJWK().toJSONString()));
+
+        String token = service("ES256", impostor).generateAccessToken(user, UUID.randomUUID().toString());
+
+        assertThatThrownBy(() -> verifier.validateToken(token))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_TOKEN));
+    }
+
+    @Test
+    void unknownKidIsRejected() throws Exception {
+        JwtTokenService verifier = service("RS256", rsaKey);
+
+        String token = service("ES256", ecKey).generateAccessToken(user, UUID.randomUUID().toString());
+
+        assertThatThrownBy(() -> verifier.validateToken(token))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_TOKEN));
+    }
+
+    private JwtTokenService service(String algorithm, JWK signingKey, String... verificationPaths) throws IOException {
+        JwtKeyConfig config = new JwtKeyConfig();
+        ReflectionTestUtils.setField(config, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(config, "privateKeyPath",
+                write(signingKey.getKeyID() + "-" + UUID.randomUUID() + ".json", signingKey.toJSONString()));
+        ReflectionTestUtils.setField(config, "algorithm", algorithm);
+        ReflectionTestUtils.setField(config, "keyId", "unused");
+        ReflectionTestUtils.setField(config, "verificationKeyPaths", List.of(verificationPaths));
+        JWK jwtSigningKey = config.jwtSigningKey();
+
+        RoleCatalog roleCatalog = mock(RoleCatalog.class);
+        when(roleCatalog.roleNames(any(AppUser.class))).thenReturn(List.of("USER"));
+        JwtTokenService service = new JwtTokenService(jwtSigningKey, config.jwtKeySet(jwtSigningKey),
+                mock(UserProfileCache.class), roleCatalog);
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 900L);
+        ReflectionTestUtils.setField(service, "refreshTokenExpiration", 604800L);
+        ReflectionTestUtils.setField(service, "issuer", "auth-service");
+        ReflectionTestUtils.setField(service, "audience", "social-media-platform");
+        service.initializeSigning();
+        return service;
+    }
+
+    private String write(String name, String content) throws IOException {
+        return Files.writeString(keyDir.resolve(name), content).toUri().toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RefreshToken;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.entities.UserSession;
+import com.nguyenkhoi.auth_service.exception.AppException;
+import com.nguyenkhoi.auth_service.exception.ErrorCode;
+import com.nguyenkhoi.auth_service.mapper.TokenMapper;
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import com.nguyenkhoi.auth_service.support.TestDoubles;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Replays revoked tokens whose state the service read from the database and cached, the
+ * path a token takes once its cache entry has expired or was never written on this node.
+ */
+class RefreshTokenReuseTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    private RefreshTokenStateCache refreshTokenStateCache;
+    private AccessTokenRevocationService accessTokenRevocationService;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenStateCache = TestDoubles.inMemoryRefreshTokenStateCache();
+        accessTokenRevocationService = mock(AccessTokenRevocationService.class);
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, TestDoubles.jwtTokenService(),
+                Mappers.getMapper(TokenMapper.class), appUserRepository, userSessionRepository,
+                refreshTokenStateCache, accessTokenRevocationService);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenExpiration", 604800L);
+        ReflectionTestUtils.setField(refreshTokenService, "maxRefreshTokensPerUser", 5);
+    }
+
+    @Test
+    void stateLoadedFromTheDatabaseKeepsTheSession() {
+        AppUser user = saveUser();
+        UserSession session = saveSession(user);
+        String identifier = newIdentifier();
+        saveToken(user, session, identifier, true);
+
+        assertThat(refreshTokenService.isValidRefreshToken(identifier)).isFalse();
+
+        assertThat(refreshTokenStateCache.get(TokenHashUtils.sha256(identifier)))
+                .hasValueSatisfying(state -> assertThat(state.sessionId()).isEqualTo(session.getId()));
+    }
+
+    @Test
+    void replayingACachedRevokedTokenRevokesOnlyItsSession() {
+        AppUser user = saveUser();
+        UserSession session = saveSession(user);
+        String identifier = newIdentifier();
+        RefreshToken token = saveToken(user, session, identifier, true);
+        refreshTokenService.isValidRefreshToken(identifier);
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test"))
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_TOKEN);
+
+        verify(accessTokenRevocationService).revokeSession(session.getId(), RevocationReason.SECURITY_BREACH);
+        verify(accessTokenRevocationService, never()).revokeUser(any(), any());
+        assertThat(refreshTokenRepository.findActiveTokensByChainId(token.getChainId())).isEmpty();
+    }
+
+    @Test
+    void replayingAnUncachedRotatedTokenRevokesOnlyItsSession() {
+        AppUser user = saveUser();
+        UserSession session = saveSession(user);
+        String identifier = newIdentifier();
+        saveToken(user, session, identifier, false);
+        refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test");
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test"))
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_TOKEN);
+
+        verify(accessTokenRevocationService).revokeSession(session.getId(), RevocationReason.SECURITY_BREACH);
+        verify(accessTokenRevocationService, never()).revokeUser(any(), any());
+    }
+
+    private static String newIdentifier() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private UserSession saveSession(AppUser user) {
+        UserSession session = new UserSession();
+        session.setUser(user);
+        session.setIpAddress("127.0.0.1");
+        session.setUserAgent("test");
+        return userSessionRepository.saveAndFlush(session);
+    }
+
+    private RefreshToken saveToken(AppUser user, UserSession session, String identifier, boolean revoked) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setSession(session);
+        token.setTokenHash(TokenHashUtils.sha256(identifier));
+        token.setChainId(UUID.randomUUID().toString());
+        token.setIssuedAt(Instant.now());
+        token.setExpiryAt(Instant.now().plus(7, ChronoUnit.DAYS));
+        token.setRevoked(revoked);
+        return refreshTokenRepository.saveAndFlush(token);
+    }
+}
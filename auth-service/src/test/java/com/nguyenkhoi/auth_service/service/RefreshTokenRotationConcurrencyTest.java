@@ -0,0 +1,183 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.dto.response.TokenResponse;
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RefreshToken;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.exception.AppException;
+import com.nguyenkhoi.auth_service.exception.ErrorCode;
+import com.nguyenkhoi.auth_service.mapper.TokenMapper;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import com.nguyenkhoi.auth_service.support.TestDoubles;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Races concurrent refreshes of one token through the transactional service, each in its own
+ * committed transaction, to show rotation happens exactly once.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenRotationConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private AccessTokenRevocationService accessTokenRevocationService;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        AccessTokenRevocationService accessTokenRevocationService() {
+            return mock(AccessTokenRevocationService.class);
+        }
+
+        @Bean
+        RefreshTokenService refreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                                                AppUserRepository appUserRepository,
+                                                UserSessionRepository userSessionRepository,
+                                                AccessTokenRevocationService accessTokenRevocationService) {
+            // The state cache is disabled, so rotation is decided by the database alone.
+            return new RefreshTokenService(refreshTokenRepository, TestDoubles.jwtTokenService(),
+                    Mappers.getMapper(TokenMapper.class), appUserRepository, userSessionRepository,
+                    TestDoubles.disabledRefreshTokenStateCache(), accessTokenRevocationService);
+        }
+    }
+
+    @RepeatedTest(5)
+    void concurrentRefreshesRotateExactlyOnce() throws Exception {
+        String identifier = newIdentifier();
+        RefreshToken original = saveToken(saveUser(), identifier, Instant.now().plus(7, ChronoUnit.DAYS));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<TokenResponse> rotated = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<ErrorCode> failures = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        rotated.add(refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test"));
+                    } catch (AppException e) {
+                        failures.add(e.getErrorCode());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(rotated).hasSize(1);
+        assertThat(failures).hasSize(THREADS - 1).containsOnly(ErrorCode.INVALID_TOKEN);
+
+        byte[] successorHash = TokenHashUtils.sha256(rotated.peek().getToken());
+        List<RefreshToken> chain = refreshTokenRepository.findByChainId(original.getChainId());
+        assertThat(chain).hasSize(2);
+        assertThat(chain).extracting(RefreshToken::getTokenHash)
+                .containsExactlyInAnyOrder(TokenHashUtils.sha256(identifier), successorHash);
+        assertThat(refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(identifier)))
+                .hasValueSatisfying(token -> assertThat(token.getReplacedByHash()).isEqualTo(successorHash));
+        // The losing refreshes count as reuse, so the successor is revoked with the chain.
+        assertThat(chain).allMatch(RefreshToken::getRevoked);
+    }
+
+    @Test
+    void sequentialRotationFollowsTheChain() {
+        String identifier = newIdentifier();
+        RefreshToken original = saveToken(saveUser(), identifier, Instant.now().plus(7, ChronoUnit.DAYS));
+
+        TokenResponse first = refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test");
+        TokenResponse second = refreshTokenService.rotateRefreshToken(first.getToken(), "127.0.0.1", "test");
+
+        assertThat(second.getChainId()).isEqualTo(original.getChainId());
+        assertThat(refreshTokenRepository.findActiveTokensByChainId(original.getChainId()))
+                .extracting(RefreshToken::getTokenHash)
+                .containsExactly(TokenHashUtils.sha256(second.getToken()));
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesTheChain() {
+        String identifier = newIdentifier();
+        AppUser user = saveUser();
+        RefreshToken original = saveToken(user, identifier, Instant.now().plus(7, ChronoUnit.DAYS));
+        refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test");
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test"))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_TOKEN);
+        assertThat(refreshTokenRepository.findActiveTokensByChainId(original.getChainId())).isEmpty();
+        // The token has no session, so every access token of the user goes with the chain.
+        verify(accessTokenRevocationService).revokeUser(user.getId(), RevocationReason.SECURITY_BREACH);
+    }
+
+    @Test
+    void expiredAndUnknownTokensAreRejectedWithoutRotation() {
+        String identifier = newIdentifier();
+        RefreshToken expired = saveToken(saveUser(), identifier, Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken(identifier, "127.0.0.1", "test"))
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.TOKEN_EXPIRED);
+        assertThatThrownBy(() -> refreshTokenService.rotateRefreshToken("unknown", "127.0.0.1", "test"))
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_TOKEN);
+        assertThat(refreshTokenRepository.findByChainId(expired.getChainId())).hasSize(1);
+    }
+
+    private static String newIdentifier() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private RefreshToken saveToken(AppUser user, String identifier, Instant expiryAt) {
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(TokenHashUtils.sha256(identifier));
+        token.setChainId(UUID.randomUUID().toString());
+        token.setIssuedAt(Instant.now());
+        token.setExpiryAt(expiryAt);
+        token.setRevoked(false);
+        return refreshTokenRepository.saveAndFlush(token);
+    }
+}
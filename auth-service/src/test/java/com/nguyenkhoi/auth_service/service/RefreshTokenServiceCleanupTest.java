@@ -0,0 +1,113 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RefreshToken;
+import com.nguyenkhoi.auth_service.mapper.TokenMapper;
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import com.nguyenkhoi.auth_service.support.TestDoubles;
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RefreshTokenServiceCleanupTest extends PostgresIntegrationTest {
+
+    private static final int MAX_TOKENS = 5;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, TestDoubles.jwtTokenService(),
+                Mappers.getMapper(TokenMapper.class), appUserRepository, userSessionRepository,
+                TestDoubles.disabledRefreshTokenStateCache(), mock(AccessTokenRevocationService.class));
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenExpiration", 604800L);
+        ReflectionTestUtils.setField(refreshTokenService, "maxRefreshTokensPerUser", MAX_TOKENS);
+    }
+
+    @Test
+    void cleanupKeepsNewestTokensAndRevokesTheRest() {
+        AppUser user = saveUser();
+        List<RefreshToken> tokens = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            tokens.add(saveToken(user, false));
+        }
+
+        refreshTokenService.cleanupExcessiveTokens(user.getId());
+
+        List<Long> active = activeTokenIds(user);
+        List<Long> newest = tokens.stream()
+                .map(RefreshToken::getId)
+                .sorted(Comparator.reverseOrder())
+                .limit(MAX_TOKENS - 1)
+                .toList();
+        assertThat(active).containsExactlyInAnyOrderElementsOf(newest);
+    }
+
+    @Test
+    void cleanupLeavesUsersBelowTheLimitAndOtherUsersAlone() {
+        AppUser user = saveUser();
+        AppUser other = saveUser();
+        for (int i = 0; i < 3; i++) {
+            saveToken(user, false);
+        }
+        for (int i = 0; i < 8; i++) {
+            saveToken(other, false);
+        }
+        saveToken(user, true);
+
+        refreshTokenService.cleanupExcessiveTokens(user.getId());
+
+        assertThat(refreshTokenRepository.countActiveTokensByUserId(user.getId())).isEqualTo(3);
+        assertThat(refreshTokenRepository.countActiveTokensByUserId(other.getId())).isEqualTo(8);
+    }
+
+    @Test
+    void createRefreshTokenKeepsActiveTokensAtTheLimit() {
+        AppUser user = saveUser();
+
+        for (int i = 0; i < 20; i++) {
+            refreshTokenService.createRefreshToken(user, null, UUID.randomUUID().toString(), "127.0.0.1", "test");
+        }
+
+        assertThat(refreshTokenRepository.countActiveTokensByUserId(user.getId())).isEqualTo(MAX_TOKENS);
+    }
+
+    private List<Long> activeTokenIds(AppUser user) {
+        return refreshTokenRepository.findActiveTokensByUserId(user.getId()).stream()
+                .map(RefreshToken::getId)
+                .toList();
+    }
+
+    private RefreshToken saveToken(AppUser user, boolean revoked) {
+        Instant now = Instant.now();
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(TokenHashUtils.sha256(UUID.randomUUID().toString()));
+        token.setChainId(UUID.randomUUID().toString());
+        token.setIssuedAt(now);
+        token.setExpiryAt(now.plus(7, ChronoUnit.DAYS));
+        token.setRevoked(revoked);
+        return refreshTokenRepository.saveAndFlush(token);
+    }
+}
@@ -0,0 +1,215 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.utils.TokenHashUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Runs the cache against a real Redis. The racing database read is played by a
+ * {@code putIfAbsent} of active state arriving after the revocation.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenStateCacheTest {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7.2").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private RefreshTokenStateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        cache = new RefreshTokenStateCache(new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "keyPrefix", "auth:refresh-token:");
+        ReflectionTestUtils.setField(cache, "revocationGuard", Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void putIsReadBack() {
+        byte[] tokenHash = newTokenHash();
+        RefreshTokenStateCache.State state = activeState(UUID.randomUUID(), UUID.randomUUID().toString());
+
+        cache.put(tokenHash, state);
+
+        assertThat(cache.get(tokenHash)).contains(state);
+    }
+
+    @Test
+    void loadDoesNotOverwriteCachedRevocation() {
+        byte[] tokenHash = newTokenHash();
+        RefreshTokenStateCache.State state = activeState(UUID.randomUUID(), UUID.randomUUID().toString());
+        cache.put(tokenHash, state);
+        cache.revokeTokens(List.of(tokenHash));
+
+        cache.putIfAbsent(tokenHash, state);
+
+        assertThat(cache.get(tokenHash)).hasValueSatisfying(cached -> assertThat(cached.revoked()).isTrue());
+    }
+
+    @Test
+    void loadAfterTokenRevocationOfUncachedTokenIsDropped() {
+        byte[] tokenHash = newTokenHash();
+        cache.revokeTokens(List.of(tokenHash));
+
+        cache.putIfAbsent(tokenHash, activeState(UUID.randomUUID(), UUID.randomUUID().toString()));
+
+        assertThat(cache.get(tokenHash)).isEmpty();
+    }
+
+    @Test
+    void loadAfterChainRevocationIsDropped() {
+        byte[] tokenHash = newTokenHash();
+        UUID userId = UUID.randomUUID();
+        String chainId = UUID.randomUUID().toString();
+        cache.revokeChains(userId, List.of(chainId));
+
+        cache.putIfAbsent(tokenHash, activeState(userId, chainId));
+
+        assertThat(cache.get(tokenHash)).isEmpty();
+    }
+
+    @Test
+    void loadAfterUserRevocationIsDropped() {
+        byte[] tokenHash = newTokenHash();
+        UUID userId = UUID.randomUUID();
+        cache.revokeUser(userId);
+
+        cache.putIfAbsent(tokenHash, activeState(userId, UUID.randomUUID().toString()));
+
+        assertThat(cache.get(tokenHash)).isEmpty();
+    }
+
+    @Test
+    void chainAndUserRevocationsMarkCachedTokens() {
+        UUID userId = UUID.randomUUID();
+        String chainId = UUID.randomUUID().toString();
+        String otherChainId = UUID.randomUUID().toString();
+        byte[] first = newTokenHash();
+        byte[] second = newTokenHash();
+        cache.put(first, activeState(userId, chainId));
+        cache.put(second, activeState(userId, otherChainId));
+
+        cache.revokeChains(userId, List.of(chainId));
+
+        assertThat(cache.get(first)).hasValueSatisfying(cached -> assertThat(cached.revoked()).isTrue());
+        assertThat(cache.get(second)).hasValueSatisfying(cached -> assertThat(cached.revoked()).isFalse());
+
+        cache.revokeUser(userId);
+
+        assertThat(cache.get(second)).hasValueSatisfying(cached -> assertThat(cached.revoked()).isTrue());
+    }
+
+    @Test
+    void tokensOfOtherChainsAreCachedDuringGuard() {
+        UUID userId = UUID.randomUUID();
+        cache.revokeChains(userId, List.of(UUID.randomUUID().toString()));
+        byte[] tokenHash = newTokenHash();
+        RefreshTokenStateCache.State state = activeState(userId, UUID.randomUUID().toString());
+
+        cache.putIfAbsent(tokenHash, state);
+
+        assertThat(cache.get(tokenHash)).contains(state);
+    }
+
+    @Test
+    void chainRevocationFailingMidwayLeavesNoActiveEntry() {
+        UUID userId = UUID.randomUUID();
+        String chainId = UUID.randomUUID().toString();
+        List<byte[]> tokenHashes = List.of(newTokenHash(), newTokenHash(), newTokenHash());
+        tokenHashes.forEach(tokenHash -> cache.put(tokenHash, activeState(userId, chainId)));
+        RefreshTokenStateCache failingCache = cacheFailingFromScript(2);
+
+        failingCache.revokeChains(userId, List.of(chainId));
+
+        assertThat(tokenHashes).allSatisfy(this::assertNotServedActive);
+    }
+
+    @Test
+    void userRevocationFailingMidwayLeavesNoActiveEntry() {
+        UUID userId = UUID.randomUUID();
+        List<byte[]> tokenHashes = List.of(newTokenHash(), newTokenHash(), newTokenHash());
+        for (byte[] tokenHash : tokenHashes) {
+            cache.put(tokenHash, activeState(userId, UUID.randomUUID().toString()));
+        }
+        RefreshTokenStateCache failingCache = cacheFailingFromScript(2);
+
+        failingCache.revokeUser(userId);
+
+        assertThat(tokenHashes).allSatisfy(this::assertNotServedActive);
+    }
+
+    @Test
+    void entryIsNotServedWhenIndexingFails() {
+        byte[] tokenHash = newTokenHash();
+
+        cacheFailingFromScript(2).put(tokenHash, activeState(UUID.randomUUID(), UUID.randomUUID().toString()));
+
+        assertThat(cache.get(tokenHash)).isEmpty();
+    }
+
+    /**
+     * A cache whose Redis connection drops from the given script call onwards, the way a
+     * revocation that dies part way through leaves its work.
+     */
+    private RefreshTokenStateCache cacheFailingFromScript(int failingCall) {
+        StringRedisTemplate template = spy(new StringRedisTemplate(connectionFactory));
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() >= failingCall) {
+                throw new RedisConnectionFailureException("connection lost");
+            }
+            return invocation.callRealMethod();
+        }).when(template).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        RefreshTokenStateCache failingCache = new RefreshTokenStateCache(template);
+        ReflectionTestUtils.setField(failingCache, "enabled", true);
+        ReflectionTestUtils.setField(failingCache, "keyPrefix", "auth:refresh-token:");
+        ReflectionTestUtils.setField(failingCache, "revocationGuard", Duration.ofSeconds(30));
+        return failingCache;
+    }
+
+    private void assertNotServedActive(byte[] tokenHash) {
+        assertThat(cache.get(tokenHash)).satisfiesAnyOf(
+                cached -> assertThat(cached).isEmpty(),
+                cached -> assertThat(cached).hasValueSatisfying(state -> assertThat(state.revoked()).isTrue()));
+    }
+
+    private static byte[] newTokenHash() {
+        return TokenHashUtils.sha256(UUID.randomUUID().toString());
+    }
+
+    private static RefreshTokenStateCache.State activeState(UUID userId, String chainId) {
+        return new RefreshTokenStateCache.State(userId, null, chainId,
+                Instant.now().plus(7, ChronoUnit.DAYS).truncatedTo(ChronoUnit.MILLIS), false);
+    }
+}
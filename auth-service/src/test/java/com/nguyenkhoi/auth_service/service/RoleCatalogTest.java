@@ -0,0 +1,86 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.UserRole;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RoleCatalogTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private RoleCatalog roleCatalog;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        roleCatalog = new RoleCatalog(userRoleRepository);
+        roleCatalog.refresh();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void loadingUserLeavesRolesUnloaded() {
+        UUID userId = saveDetachedUser("USER", "ADMIN");
+
+        statistics.clear();
+        AppUser user = appUserRepository.findById(userId).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(user.getRoles())).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void roleNamesOfLoadedUserTakeOneQuery() {
+        UUID userId = saveDetachedUser("USER", "ADMIN");
+        AppUser user = appUserRepository.findById(userId).orElseThrow();
+
+        statistics.clear();
+
+        assertThat(roleCatalog.roleNames(user)).containsExactlyInAnyOrder("USER", "ADMIN");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void roleNamesUseRolesAlreadyOnUser() {
+        AppUser user = new AppUser();
+        user.setId(UUID.randomUUID());
+        user.setRoles(Set.of(new UserRole("USER")));
+
+        statistics.clear();
+
+        assertThat(roleCatalog.roleNames(user)).containsExactly("USER");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void roleAddedAfterLoadIsPickedUp() {
+        userRoleRepository.saveAndFlush(new UserRole("MODERATOR"));
+        UUID userId = saveDetachedUser("USER", "MODERATOR");
+
+        assertThat(roleCatalog.roleNames(userId)).containsExactlyInAnyOrder("USER", "MODERATOR");
+    }
+
+    private UUID saveDetachedUser(String... roleNames) {
+        UUID userId = saveUser(roleNames).getId();
+        entityManager.clear();
+        return userId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.nguyenkhoi.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SessionActivityBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SessionActivityBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        buffer = new SessionActivityBuffer(jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "batchSize", 2);
+        buffer.registerMetrics();
+    }
+
+    @Test
+    void flushBindsUtcWallTimeForTimestampColumn() {
+        UUID sessionId = UUID.randomUUID();
+        Instant before = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        buffer.record(sessionId);
+
+        buffer.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        assertThat(sql.getValue()).contains("?::timestamp)").doesNotContain("timestamptz");
+        assertThat(args.getValue()).hasSize(2);
+        assertThat(args.getValue()[0]).isEqualTo(sessionId);
+        assertThat(args.getValue()[1]).isInstanceOf(LocalDateTime.class);
+        Instant written = ((LocalDateTime) args.getValue()[1]).toInstant(ZoneOffset.UTC);
+        assertThat(written).isBetween(before.minusMillis(1), Instant.now());
+    }
+
+    @Test
+    void flushSplitsSessionsIntoBatches() {
+        for (int i = 0; i < 3; i++) {
+            buffer.record(UUID.randomUUID());
+        }
+
+        buffer.flush();
+
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void failedFlushKeepsActivityForTheNextOne() {
+        UUID sessionId = UUID.randomUUID();
+        buffer.record(sessionId);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(1);
+
+        buffer.flush();
+        buffer.flush();
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(anyString(), args.capture());
+        assertThat(args.getAllValues().get(1)[0]).isEqualTo(sessionId);
+    }
+
+    @Test
+    void emptyBufferWritesNothing() {
+        buffer.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,66 @@
+package com.nguyenkhoi.auth_service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SessionRevocationPublisherTest {
+
+    private static final String CHANNEL = "auth:session-revocations";
+    private static final String USER_EPOCHS_KEY = "auth:user-revocation-epochs";
+
+    private StringRedisTemplate redisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private SessionRevocationPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        publisher = new SessionRevocationPublisher(redisTemplate);
+        ReflectionTestUtils.setField(publisher, "accessTokenExpiration", 900L);
+        ReflectionTestUtils.setField(publisher, "channel", CHANNEL);
+        ReflectionTestUtils.setField(publisher, "revokedSessionsKey", "auth:revoked-sessions");
+        ReflectionTestUtils.setField(publisher, "userEpochsKey", USER_EPOCHS_KEY);
+    }
+
+    @Test
+    void userEpochIsWholeSeconds() {
+        UUID userId = UUID.randomUUID();
+
+        publisher.userSessionsRevoked(userId);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        assertThat(message.getValue()).startsWith("user:" + userId + ":");
+        long epoch = Long.parseLong(message.getValue().substring(message.getValue().lastIndexOf(':') + 1));
+        assertThat(epoch % 1000).isZero();
+
+        ArgumentCaptor<Double> score = ArgumentCaptor.forClass(Double.class);
+        verify(zSetOperations).add(eq(USER_EPOCHS_KEY), eq(userId.toString()), score.capture());
+        assertThat(score.getValue().longValue()).isEqualTo(epoch);
+    }
+
+    @Test
+    void redisFailureDoesNotPropagate() {
+        when(zSetOperations.add(anyString(), anyString(), anyDouble())).thenThrow(new IllegalStateException("down"));
+
+        publisher.sessionRevoked(UUID.randomUUID());
+    }
+}
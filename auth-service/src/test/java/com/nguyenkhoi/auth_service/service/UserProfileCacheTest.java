@@ -0,0 +1,156 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two cache instances over one PostgreSQL and one Redis stand in for two auth-service nodes.
+ * Statements are counted with Hibernate statistics to tell cache hits from database loads.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserProfileCacheTest extends PostgresIntegrationTest {
+
+    private static final String KEY_PREFIX = "auth:user:";
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7.2").withExposedPorts(6379);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer listenerContainer;
+    private StringRedisTemplate redis;
+    private Statistics statistics;
+    private UserProfileCache node;
+    private UserProfileCache otherNode;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        node = newNode();
+        otherNode = newNode();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        listenerContainer.destroy();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void repeatedLookupsSkipDatabase() {
+        AppUser user = saveUser("USER");
+        assertThat(node.findById(user.getId())).isPresent();
+
+        statistics.clear();
+        UserProfileCache.Snapshot near = node.findById(user.getId()).orElseThrow();
+        UserProfileCache.Snapshot shared = otherNode.findById(user.getId()).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(shared).isEqualTo(near);
+        assertThat(near.username()).isEqualTo(user.getUsername());
+        assertThat(near.roles()).containsExactly("USER");
+        assertThat(near.passwordVersion()).isEqualTo(UserProfileCache.passwordVersion(user.getPassword()));
+    }
+
+    @Test
+    void redisCopyHoldsNoPasswordHash() {
+        AppUser user = saveUser("USER");
+        node.findById(user.getId());
+
+        assertThat(redis.opsForHash().entries(KEY_PREFIX + user.getId()))
+                .isNotEmpty()
+                .doesNotContainValue(user.getPassword());
+    }
+
+    @Test
+    void invalidationReachesOtherNodes() {
+        AppUser user = saveUser("USER");
+        assertThat(otherNode.findById(user.getId()).orElseThrow().locked()).isFalse();
+
+        AppUser stored = appUserRepository.findById(user.getId()).orElseThrow();
+        stored.setIsLocked(true);
+        appUserRepository.saveAndFlush(stored);
+        node.invalidate(user.getId());
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> otherNode.findById(user.getId()).orElseThrow().locked());
+    }
+
+    @Test
+    void invalidationGuardKeepsReloadsOutOfRedis() {
+        AppUser user = saveUser("USER");
+        node.findById(user.getId());
+
+        node.invalidate(user.getId());
+        otherNode.findById(user.getId());
+
+        assertThat(redis.hasKey(KEY_PREFIX + user.getId())).isFalse();
+    }
+
+    @Test
+    void takenLoginIsDroppedFromMissingLoginsOnEveryNode() {
+        String login = "missing_" + UUID.randomUUID();
+        node.recordMissing(login);
+        otherNode.recordMissing(login);
+        assertThat(otherNode.isKnownMissing(login)).isTrue();
+
+        node.loginsTaken(login);
+
+        assertThat(node.isKnownMissing(login)).isFalse();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> !otherNode.isKnownMissing(login));
+    }
+
+    private UserProfileCache newNode() {
+        RoleCatalog roleCatalog = new RoleCatalog(userRoleRepository);
+        roleCatalog.refresh();
+        UserProfileCache cache = new UserProfileCache(appUserRepository, roleCatalog, redis, listenerContainer,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "keyPrefix", KEY_PREFIX);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(cache, "nearTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "nearMaxSize", 1000L);
+        ReflectionTestUtils.setField(cache, "missingLoginTtl", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(cache, "missingLoginMaxSize", 1000L);
+        ReflectionTestUtils.setField(cache, "channel", "auth:user-invalidations");
+        ReflectionTestUtils.setField(cache, "invalidationGuard", Duration.ofSeconds(30));
+        cache.initialize();
+        return cache;
+    }
+}
@@ -0,0 +1,65 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RevokedToken.RevocationReason;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private AppUserRepository userRepository;
+    private UserProfileCache userProfileCache;
+    private AccessTokenRevocationService accessTokenRevocationService;
+    private UserService userService;
+    private AppUser user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(AppUserRepository.class);
+        userProfileCache = mock(UserProfileCache.class);
+        accessTokenRevocationService = mock(AccessTokenRevocationService.class);
+        userService = new UserService(userRepository, null, null, null, userProfileCache,
+                accessTokenRevocationService);
+
+        user = new AppUser();
+        user.setId(UUID.randomUUID());
+        user.setIsEnabled(true);
+        user.setIsLocked(false);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void lockingUserRevokesTheirAccessTokens() {
+        userService.lockUser(user.getId());
+
+        assertThat(user.getIsLocked()).isTrue();
+        verify(userProfileCache).invalidate(user.getId());
+        verify(accessTokenRevocationService).revokeUser(user.getId(), RevocationReason.ADMIN_REVOKED);
+    }
+
+    @Test
+    void disablingUserRevokesTheirAccessTokens() {
+        userService.disableUser(user.getId());
+
+        assertThat(user.getIsEnabled()).isFalse();
+        verify(accessTokenRevocationService).revokeUser(user.getId(), RevocationReason.ADMIN_REVOKED);
+    }
+
+    @Test
+    void unlockingUserRevokesNothing() {
+        userService.unlockUser(user.getId());
+
+        verify(accessTokenRevocationService, never()).revokeUser(any(), any());
+    }
+}
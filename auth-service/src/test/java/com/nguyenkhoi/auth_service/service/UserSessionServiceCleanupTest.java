@@ -0,0 +1,114 @@
+package com.nguyenkhoi.auth_service.service;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.mapper.SessionMapper;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.support.PostgresIntegrationTest;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class UserSessionServiceCleanupTest extends PostgresIntegrationTest {
+
+    private static final int MAX_SESSIONS = 5;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    private SessionRevocationPublisher sessionRevocationPublisher;
+    private UserSessionService userSessionService;
+
+    @BeforeEach
+    void setUp() {
+        sessionRevocationPublisher = mock(SessionRevocationPublisher.class);
+        userSessionService = new UserSessionService(userSessionRepository, Mappers.getMapper(SessionMapper.class),
+                sessionRevocationPublisher, mock(SessionActivityBuffer.class));
+        ReflectionTestUtils.setField(userSessionService, "maxSessionsPerUser", MAX_SESSIONS);
+        ReflectionTestUtils.setField(userSessionService, "sessionTimeoutHours", 24);
+    }
+
+    @Test
+    void cleanupRevokesTheLeastRecentlyActiveSessionsBeyondTheCap() {
+        AppUser user = saveUser();
+        // last_active is a permutation of the insertion order, so creation order cannot pass for it
+        seedSessions(user, 9, "now() - ((g * 4) % 9) * interval '1 hour'", false);
+        seedSessions(user, 2, "now()", true);
+        List<UUID> byLastActive = ids("SELECT id FROM user_session WHERE user_id = '" + user.getId()
+                + "' AND NOT revoked ORDER BY last_active DESC");
+
+        userSessionService.cleanupExcessiveSessions(user.getId());
+
+        assertThat(ids("SELECT id FROM user_session WHERE user_id = '" + user.getId() + "' AND NOT revoked"))
+                .containsExactlyInAnyOrderElementsOf(byLastActive.subList(0, MAX_SESSIONS - 1));
+        for (UUID revoked : byLastActive.subList(MAX_SESSIONS - 1, byLastActive.size())) {
+            verify(sessionRevocationPublisher).sessionRevoked(revoked);
+        }
+        for (UUID kept : byLastActive.subList(0, MAX_SESSIONS - 1)) {
+            verify(sessionRevocationPublisher, never()).sessionRevoked(kept);
+        }
+    }
+
+    @Test
+    void cleanupLeavesUsersBelowTheCapAndOtherUsersAlone() {
+        AppUser user = saveUser();
+        AppUser other = saveUser();
+        seedSessions(user, 3, "now() - g * interval '1 hour'", false);
+        seedSessions(other, 8, "now() - g * interval '1 hour'", false);
+
+        userSessionService.cleanupExcessiveSessions(user.getId());
+
+        assertThat(userSessionRepository.countActiveSessionsByUserId(user.getId())).isEqualTo(3);
+        assertThat(userSessionRepository.countActiveSessionsByUserId(other.getId())).isEqualTo(8);
+
+        userSessionService.cleanupExcessiveSessions(other.getId());
+
+        assertThat(userSessionRepository.countActiveSessionsByUserId(user.getId())).isEqualTo(3);
+        assertThat(userSessionRepository.countActiveSessionsByUserId(other.getId())).isEqualTo(MAX_SESSIONS - 1);
+    }
+
+    private void seedSessions(AppUser user, int rows, String lastActive, boolean revoked) {
+        execute("""
+                INSERT INTO user_session (id, user_id, device_info, ip_address, user_agent, created_at, last_active, revoked)
+                SELECT gen_random_uuid(), '%s', 'Linux Desktop', '10.0.0.1', 'test', now() - interval '7 days', %s, %s
+                FROM generate_series(1, %d) g
+                """.formatted(user.getId(), lastActive, revoked, rows));
+    }
+
+    private List<UUID> ids(String sql) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<UUID> ids = new ArrayList<>();
+            try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+                while (result.next()) {
+                    ids.add(result.getObject(1, UUID.class));
+                }
+            }
+            return ids;
+        });
+    }
+
+    private void execute(String sql) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.nguyenkhoi.auth_service.support;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.UserRole;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import com.nguyenkhoi.auth_service.repository.UserRoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Base for repository-level tests against a real PostgreSQL, with the schema created by the
+ * service's Liquibase changelog. Skipped when Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.cloud.config.enabled=false",
+        "CONFIG_SERVER_URL=http://localhost:8888"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17");
+
+    @Autowired
+    protected AppUserRepository appUserRepository;
+
+    @Autowired
+    protected UserRoleRepository userRoleRepository;
+
+    /**
+     * Saves an enabled, unlocked user with a random name, a password hash and the given
+     * seeded roles, flushed so it is visible to native queries.
+     */
+    protected AppUser saveUser(String... roleNames) {
+        String name = "user_" + UUID.randomUUID().toString().substring(0, 8);
+        AppUser user = new AppUser();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("$2a$10$" + UUID.randomUUID());
+        user.setIsEnabled(true);
+        user.setIsLocked(false);
+        Set<UserRole> roles = new HashSet<>();
+        for (String roleName : roleNames) {
+            roles.add(userRoleRepository.findByName(roleName).orElseThrow());
+        }
+        user.setRoles(roles);
+        return appUserRepository.saveAndFlush(user);
+    }
+}
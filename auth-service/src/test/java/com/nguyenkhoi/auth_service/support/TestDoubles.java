@@ -0,0 +1,57 @@
+package com.nguyenkhoi.auth_service.support;
+
+import com.nguyenkhoi.auth_service.service.JwtTokenService;
+import com.nguyenkhoi.auth_service.service.RefreshTokenStateCache;
+
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Collaborators for tests that exercise {@code RefreshTokenService} against the database only.
+ */
+public final class TestDoubles {
+
+    private TestDoubles() {
+    }
+
+    /**
+     * Issues random refresh token identifiers; nothing that needs a signing key is stubbed.
+     */
+    public static JwtTokenService jwtTokenService() {
+        JwtTokenService jwtTokenService = mock(JwtTokenService.class);
+        when(jwtTokenService.generateRefreshTokenIdentifier())
+                .thenAnswer(invocation -> UUID.randomUUID().toString().replace("-", ""));
+        return jwtTokenService;
+    }
+
+    /**
+     * Never has an entry and ignores writes and revocations, so every lookup goes to the database.
+     */
+    public static RefreshTokenStateCache disabledRefreshTokenStateCache() {
+        return mock(RefreshTokenStateCache.class);
+    }
+
+    /**
+     * Keeps what is put in a map and ignores revocations, so a test sees exactly the state
+     * the service cached.
+     */
+    public static RefreshTokenStateCache inMemoryRefreshTokenStateCache() {
+        Map<String, RefreshTokenStateCache.State> entries = new ConcurrentHashMap<>();
+        RefreshTokenStateCache cache = mock(RefreshTokenStateCache.class);
+        when(cache.get(any())).thenAnswer(invocation ->
+                Optional.ofNullable(entries.get(HexFormat.of().formatHex(invocation.<byte[]>getArgument(0)))));
+        doAnswer(invocation -> entries.put(HexFormat.of().formatHex(invocation.<byte[]>getArgument(0)),
+                invocation.getArgument(1))).when(cache).put(any(), any());
+        doAnswer(invocation -> entries.putIfAbsent(HexFormat.of().formatHex(invocation.<byte[]>getArgument(0)),
+                invocation.getArgument(1))).when(cache).putIfAbsent(any(), any());
+        return cache;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nguyenkhoi.benchmarks.auth;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.filter.JwtTokenValidator;
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.service.JwtTokenService;
+import com.nguyenkhoi.benchmarks.support.AuthFixtures;
+import com.nguyenkhoi.benchmarks.support.GatewayFixtures;
+import com.nguyenkhoi.benchmarks.support.TestKeys;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput per access-token algorithm: minting and validation in the
+ * auth-service (Nimbus) and uncached validation at the gateway (JJWT). The
+ * {@code tokenBytes} counter reports the compact token size each request header carries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtTokenService jwtTokenService;
+    private JwtTokenValidator gatewayValidator;
+    private AppUser user;
+    private String sessionId;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        JWK signingKey = TestKeys.generate(JWSAlgorithm.parse(algorithm));
+        jwtTokenService = AuthFixtures.jwtTokenService(signingKey);
+        gatewayValidator = GatewayFixtures.jwtTokenValidator(new GatewayProperties(), TestKeys.writePublicKeyPem(signingKey));
+        user = AuthFixtures.user();
+        sessionId = UUID.randomUUID().toString();
+        accessToken = jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TokenSize {
+        public long tokenBytes;
+    }
+
+    @Benchmark
+    public String sign(TokenSize size) {
+        String token = jwtTokenService.generateAccessToken(user, sessionId);
+        size.tokenBytes = token.length();
+        return token;
+    }
+
+    @Benchmark
+    public JWTClaimsSet verify() {
+        return jwtTokenService.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public Claims gatewayVerify() {
+        return gatewayValidator.validateToken(accessToken);
+    }
+}
@@ -0,0 +1,74 @@
+package com.nguyenkhoi.benchmarks.auth;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.service.JwtTokenService;
+import com.nguyenkhoi.benchmarks.support.AuthFixtures;
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access token issuance and validation in {@link JwtTokenService} (Nimbus, RS256).
+ * Minting is also measured at 4, 8 and 16 threads to show how it scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenServiceBenchmark {
+
+    private JwtTokenService jwtTokenService;
+    private AppUser user;
+    private String sessionId;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtTokenService = AuthFixtures.jwtTokenService();
+        user = AuthFixtures.user();
+        sessionId = UUID.randomUUID().toString();
+        accessToken = jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateAccessToken4Threads() {
+        return jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateAccessToken8Threads() {
+        return jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String generateAccessToken16Threads() {
+        return jwtTokenService.generateAccessToken(user, sessionId);
+    }
+
+    @Benchmark
+    public JWTClaimsSet validateToken() {
+        return jwtTokenService.validateToken(accessToken);
+    }
+}
@@ -0,0 +1,157 @@
+package com.nguyenkhoi.benchmarks.auth;
+
+import com.nguyenkhoi.auth_service.dto.response.TokenResponse;
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.RefreshToken;
+import com.nguyenkhoi.auth_service.mapper.TokenMapper;
+import com.nguyenkhoi.auth_service.repository.AppUserRepository;
+import com.nguyenkhoi.auth_service.repository.RefreshTokenRepository;
+import com.nguyenkhoi.auth_service.service.JwtTokenService;
+import com.nguyenkhoi.auth_service.service.RefreshTokenService;
+import com.nguyenkhoi.auth_service.service.RefreshTokenStateCache;
+import com.nguyenkhoi.benchmarks.support.AuthFixtures;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh latency in {@link RefreshTokenService} with and without the Redis token-state
+ * cache, against PostgreSQL 17 and Redis 7.2 containers started for the trial.
+ * <p>
+ * {@code validate} reads the state of one active token: a Redis hash lookup when the cache
+ * is enabled, the covering-index query otherwise. {@code rotate} refreshes along one chain;
+ * the compare-and-set and INSERT always hit PostgreSQL, so the cache adds its write-through
+ * on top and the comparison shows what that costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefreshTokenCacheBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private PostgreSQLContainer<?> postgres;
+    private GenericContainer<?> redis;
+    private ConfigurableApplicationContext context;
+    private RefreshTokenService refreshTokenService;
+    private String activeToken;
+    private String currentToken;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:17");
+        redis = new GenericContainer<>("redis:7.2").withExposedPorts(6379);
+        postgres.start();
+        redis.start();
+
+        context = new SpringApplicationBuilder(Config.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                // Keep the auth-service application.yml on the classpath out of the context.
+                "spring.config.name=refresh-token-cache-benchmark",
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword(),
+                "spring.jpa.hibernate.ddl-auto=none",
+                "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.yaml",
+                "spring.data.redis.host=" + redis.getHost(),
+                "spring.data.redis.port=" + redis.getMappedPort(6379),
+                "jwt.refresh-token.expiration=604800",
+                "security.max-refresh-tokens-per-user=10",
+                "security.refresh-token-cache.enabled=" + cacheEnabled)
+            .run();
+        refreshTokenService = context.getBean(RefreshTokenService.class);
+
+        AppUser user = new AppUser();
+        user.setUsername("benchmark_user");
+        user.setEmail("benchmark.user@example.com");
+        user.setIsEnabled(true);
+        user.setIsLocked(false);
+        user = context.getBean(AppUserRepository.class).save(user);
+
+        activeToken = refreshTokenService
+            .createRefreshToken(user, null, UUID.randomUUID().toString(), "127.0.0.1", "benchmark")
+            .getToken();
+        currentToken = refreshTokenService
+            .createRefreshToken(user, null, UUID.randomUUID().toString(), "127.0.0.1", "benchmark")
+            .getToken();
+        // Warm the cache for the validated token as a previous request would have.
+        refreshTokenService.validateRefreshToken(activeToken);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        redis.stop();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public RefreshTokenStateCache.State validate() {
+        return refreshTokenService.validateRefreshToken(activeToken);
+    }
+
+    @Benchmark
+    public TokenResponse rotate() {
+        TokenResponse response = refreshTokenService.rotateRefreshToken(currentToken, "127.0.0.1", "benchmark");
+        currentToken = response.getToken();
+        return response;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        LiquibaseAutoConfiguration.class,
+        TransactionAutoConfiguration.class,
+        RedisAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = RefreshToken.class)
+    @EnableJpaRepositories(basePackageClasses = RefreshTokenRepository.class)
+    @Import({RefreshTokenService.class, RefreshTokenStateCache.class})
+    static class Config {
+
+        @Bean
+        JwtTokenService jwtTokenService() {
+            return AuthFixtures.jwtTokenService();
+        }
+
+        @Bean
+        TokenMapper tokenMapper() {
+            return Mappers.getMapper(TokenMapper.class);
+        }
+    }
+}
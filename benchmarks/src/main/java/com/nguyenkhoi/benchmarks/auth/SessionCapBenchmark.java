@@ -0,0 +1,208 @@
+package com.nguyenkhoi.benchmarks.auth;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.UserSession;
+import com.nguyenkhoi.auth_service.mapper.SessionMapper;
+import com.nguyenkhoi.auth_service.repository.UserSessionRepository;
+import com.nguyenkhoi.auth_service.service.SessionActivityBuffer;
+import com.nguyenkhoi.auth_service.service.SessionRevocationPublisher;
+import com.nguyenkhoi.auth_service.service.UserSessionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session creation at login, which first enforces {@code security.max-sessions-per-user},
+ * against a PostgreSQL 17 container seeded with 10,000 users holding 20 active sessions each.
+ * <p>
+ * {@code createSession} runs the single-statement cap in {@link UserSessionService};
+ * {@code createSessionLegacy} runs the former count, load, sort and save-each-row cap in
+ * one transaction for comparison. Each iteration restores the seeded sessions, and users are
+ * taken round-robin so every login meets a user over the cap. Sample mode reports p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionCapBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int SESSIONS_PER_USER = 20;
+    private static final int MAX_SESSIONS = 5;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private UserSessionService userSessionService;
+    private UserSessionRepository sessionRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private List<AppUser> users;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:17");
+        postgres.start();
+
+        context = new SpringApplicationBuilder(Config.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                // Keep the auth-service application.yml on the classpath out of the context.
+                "spring.config.name=session-cap-benchmark",
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword(),
+                "spring.jpa.hibernate.ddl-auto=none",
+                "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.yaml",
+                "jwt.access-token.expiration=900",
+                "security.max-sessions-per-user=" + MAX_SESSIONS,
+                "security.session-timeout-hours=24")
+            .run();
+        userSessionService = context.getBean(UserSessionService.class);
+        sessionRepository = context.getBean(UserSessionRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        jdbcTemplate.update("""
+            INSERT INTO app_user (id, username, email, is_enabled, is_locked, created_at)
+            SELECT gen_random_uuid(), 'bench_' || g, 'bench_' || g || '@example.com', true, false, now()
+            FROM generate_series(1, ?) g
+            """, USERS);
+        jdbcTemplate.update("""
+            INSERT INTO user_session (id, user_id, device_info, ip_address, user_agent, created_at, last_active, revoked)
+            SELECT gen_random_uuid(), u.id, 'Linux Desktop', '127.0.0.1', 'seed',
+                   now() - interval '1 day', now() - s * interval '1 minute', false
+            FROM app_user u CROSS JOIN generate_series(1, ?) s
+            """, SESSIONS_PER_USER);
+        jdbcTemplate.execute("ANALYZE app_user");
+        jdbcTemplate.execute("ANALYZE user_session");
+
+        users = jdbcTemplate.queryForList("SELECT id FROM app_user", UUID.class).stream()
+            .map(id -> {
+                AppUser user = new AppUser();
+                user.setId(id);
+                return user;
+            })
+            .toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void restoreSessions() {
+        jdbcTemplate.update("DELETE FROM user_session WHERE user_agent <> 'seed'");
+        jdbcTemplate.update("UPDATE user_session SET revoked = false WHERE revoked");
+        next = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public UserSession createSession() {
+        return userSessionService.createSession(nextUser(), "127.0.0.1", "benchmark", "Linux Desktop");
+    }
+
+    @Benchmark
+    public UserSession createSessionLegacy() {
+        AppUser user = nextUser();
+        return transactionTemplate.execute(status -> {
+            long active = sessionRepository.countActiveSessionsByUserId(user.getId());
+            if (active >= MAX_SESSIONS) {
+                sessionRepository.findActiveSessionsByUserId(user.getId()).stream()
+                    .sorted(Comparator.comparing(UserSession::getLastActive))
+                    .limit(active - MAX_SESSIONS + 1)
+                    .forEach(session -> {
+                        session.setRevoked(true);
+                        sessionRepository.save(session);
+                    });
+            }
+            UserSession session = new UserSession();
+            session.setUser(user);
+            session.setIpAddress("127.0.0.1");
+            session.setUserAgent("benchmark");
+            session.setDeviceInfo("Linux Desktop");
+            session.setRevoked(false);
+            session.setLastActive(Instant.now());
+            return sessionRepository.save(session);
+        });
+    }
+
+    private AppUser nextUser() {
+        AppUser user = users.get(next);
+        next = (next + 1) % users.size();
+        return user;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+        DataSourceAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class,
+        LiquibaseAutoConfiguration.class,
+        TransactionAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = UserSession.class)
+    @EnableJpaRepositories(basePackageClasses = UserSessionRepository.class)
+    @Import({UserSessionService.class, SessionActivityBuffer.class})
+    static class Config {
+
+        @Bean
+        SessionMapper sessionMapper() {
+            return Mappers.getMapper(SessionMapper.class);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // Measures the database work only; gateway notifications are not part of the cap.
+        @Bean
+        SessionRevocationPublisher sessionRevocationPublisher() {
+            return new SessionRevocationPublisher(null) {
+                @Override
+                public void sessionRevoked(UUID sessionId) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.nguyenkhoi.benchmarks.auth;
+
+import com.nguyenkhoi.auth_service.service.TokenEncryptionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AES-GCM round trip in {@link TokenEncryptionService} for a refresh-token sized payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenEncryptionServiceBenchmark {
+
+    private TokenEncryptionService tokenEncryptionService;
+    private String plaintext;
+    private String ciphertext;
+
+    @Setup
+    public void setUp() {
+        byte[] key = new byte[32];
+        ThreadLocalRandom.current().nextBytes(key);
+        tokenEncryptionService = new TokenEncryptionService(Base64.getEncoder().encodeToString(key));
+
+        byte[] token = new byte[48];
+        ThreadLocalRandom.current().nextBytes(token);
+        plaintext = Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+        ciphertext = tokenEncryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return tokenEncryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return tokenEncryptionService.decrypt(ciphertext);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nguyenkhoi.benchmarks.gateway;
+
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter;
+import com.nguyenkhoi.api_gateway.exception.ErrorResponseWriter.ErrorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejected-request throughput of {@link ErrorResponseWriter} against the
+ * {@code String.format} body the gateway used to build for every 401.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private static final String PATH = "/api/posts/3f2b8c1e-6a4d-4c0e-9b7a-1d2e3f405162/comments";
+
+    @Benchmark
+    public void templateWriter() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        ErrorResponseWriter.write(exchange, ErrorType.INVALID_TOKEN).block();
+    }
+
+    @Benchmark
+    public void formattedString() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+        String body = String.format(
+            "{\"error\":{\"message\":\"%s\",\"status\":%d,\"timestamp\":\"%s\",\"path\":\"%s\"}}",
+            "Invalid JWT token", 401, Instant.now().toString(), exchange.getRequest().getPath().value());
+        DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.wrap(body.getBytes(StandardCharsets.UTF_8));
+        exchange.getResponse().writeWith(Mono.just(buffer)).block();
+    }
+}
@@ -0,0 +1,101 @@
+package com.nguyenkhoi.benchmarks.gateway;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.filter.JwksKeyResolver;
+import com.nguyenkhoi.api_gateway.filter.JwtTokenValidator;
+import com.nguyenkhoi.benchmarks.support.AuthFixtures;
+import com.nguyenkhoi.benchmarks.support.GatewayFixtures;
+import com.nguyenkhoi.benchmarks.support.TestKeys;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uncached verification in the gateway's {@link JwtTokenValidator} (JJWT) of a token
+ * issued by the auth-service's JwtTokenService, at event-loop-like thread counts. The
+ * {@code parserPerCall} benchmarks build the parser for every token, as the validator did
+ * before it kept one, and are the baseline for the shared parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenValidatorBenchmark {
+
+    private GatewayProperties.Jwt jwt;
+    private JwksKeyResolver keyResolver;
+    private JwtTokenValidator jwtTokenValidator;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        GatewayProperties properties = new GatewayProperties();
+        jwt = properties.getJwt();
+        String publicKeyPath = TestKeys.writeRsaPublicKeyPem();
+        keyResolver = GatewayFixtures.keyResolver(properties, publicKeyPath);
+        jwtTokenValidator = GatewayFixtures.jwtTokenValidator(properties, publicKeyPath);
+        accessToken = AuthFixtures.jwtTokenService()
+            .generateAccessToken(AuthFixtures.user(), UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Claims validateToken() {
+        return jwtTokenValidator.validateToken(accessToken);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims validateToken8Threads() {
+        return jwtTokenValidator.validateToken(accessToken);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Claims validateToken64Threads() {
+        return jwtTokenValidator.validateToken(accessToken);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Claims parserPerCall() {
+        return parseWithNewParser();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Claims parserPerCall8Threads() {
+        return parseWithNewParser();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Claims parserPerCall64Threads() {
+        return parseWithNewParser();
+    }
+
+    private Claims parseWithNewParser() {
+        return Jwts.parser()
+            .keyLocator(keyResolver)
+            .requireIssuer(jwt.getIssuer())
+            .requireAudience(jwt.getAudience())
+            .build()
+            .parseSignedClaims(accessToken)
+            .getPayload();
+    }
+}
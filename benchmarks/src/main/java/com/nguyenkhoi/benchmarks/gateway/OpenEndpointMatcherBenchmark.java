@@ -0,0 +1,60 @@
+package com.nguyenkhoi.benchmarks.gateway;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.filter.OpenEndpointMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the open-endpoint check in AuthenticationFilter as the number of public routes grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenEndpointMatcherBenchmark {
+
+    @Param({"5", "50"})
+    private int openEndpoints;
+
+    private OpenEndpointMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        List<String> endpoints = new ArrayList<>();
+        for (int i = 0; i < openEndpoints; i++) {
+            endpoints.add("/public/feature-" + i + "/*/details");
+        }
+        endpoints.add("/auth/login");
+        endpoints.add("/actuator/health");
+
+        GatewayProperties properties = new GatewayProperties();
+        properties.getSecurity().setOpenEndpoints(endpoints);
+        matcher = new OpenEndpointMatcher(properties);
+    }
+
+    @Benchmark
+    public boolean openPath() {
+        return matcher.isOpen("/auth/login");
+    }
+
+    @Benchmark
+    public boolean securedPath() {
+        return matcher.isOpen("/posts/3f2b8c1e-6a4d-4c0e-9b7a-1d2e3f405162/comments");
+    }
+}
@@ -0,0 +1,110 @@
+package com.nguyenkhoi.benchmarks.gateway;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.filter.AuthenticationFilter;
+import com.nguyenkhoi.api_gateway.filter.LocalRateLimiter;
+import com.nguyenkhoi.api_gateway.filter.RateLimitFilter;
+import com.nguyenkhoi.api_gateway.filter.RedisBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request overhead of {@link RateLimitFilter} with the in-memory backend. The limit is
+ * high enough that every request is admitted, so the score is the cost of the key lookup
+ * and the bucket CAS, either on one hot key or spread over many users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private static final GatewayFilterChain NO_OP_CHAIN = exchange -> Mono.empty();
+
+    @Param({"1", "100000"})
+    private int distinctUsers;
+
+    private GatewayFilter filter;
+    private LocalRateLimiter limiter;
+    private String[] userIds;
+
+    @Setup
+    public void setUp() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getSecurity().setRateLimitPerMinute(Integer.MAX_VALUE);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        limiter = new LocalRateLimiter(properties, meterRegistry);
+        filter = new RateLimitFilter(properties, limiter,
+            new DefaultListableBeanFactory().getBeanProvider(RedisBucketRateLimiter.class),
+            meterRegistry).apply(new RateLimitFilter.Config());
+
+        userIds = new String[distinctUsers];
+        for (int i = 0; i < distinctUsers; i++) {
+            userIds[i] = "user-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        limiter.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        private MockServerWebExchange[] exchanges;
+        private int next;
+
+        @Setup
+        public void setUp(RateLimitFilterBenchmark benchmark) {
+            exchanges = new MockServerWebExchange[Math.min(benchmark.userIds.length, 1024)];
+            for (int i = 0; i < exchanges.length; i++) {
+                exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get("/api/posts/1"));
+            }
+        }
+
+        MockServerWebExchange next(String[] userIds) {
+            int index = next;
+            next = index + 1 == userIds.length ? 0 : index + 1;
+            MockServerWebExchange exchange = exchanges[index % exchanges.length];
+            exchange.getAttributes().put(AuthenticationFilter.USER_ID_ATTRIBUTE, userIds[index]);
+            return exchange;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Mono<Void> filter(RequestState request) {
+        return filter.filter(request.next(userIds), NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Mono<Void> filter8Threads(RequestState request) {
+        return filter.filter(request.next(userIds), NO_OP_CHAIN);
+    }
+}
@@ -0,0 +1,50 @@
+package com.nguyenkhoi.benchmarks.support;
+
+import com.nguyenkhoi.auth_service.entities.AppUser;
+import com.nguyenkhoi.auth_service.entities.UserRole;
+import com.nguyenkhoi.auth_service.service.JwtTokenService;
+import com.nguyenkhoi.auth_service.service.RoleCatalog;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Builds auth-service components outside a Spring context with the same settings the
+ * service reads from {@code application.yml}.
+ */
+public final class AuthFixtures {
+
+    public static final String ISSUER = "auth-service";
+    public static final String AUDIENCE = "social-media-platform";
+
+    private AuthFixtures() {
+    }
+
+    public static JwtTokenService jwtTokenService() {
+        return jwtTokenService(TestKeys.rsaJwk());
+    }
+
+    public static JwtTokenService jwtTokenService(JWK signingKey) {
+        // Fixture users carry their roles, so the catalog never needs a repository.
+        JwtTokenService service = new JwtTokenService(signingKey, new JWKSet(signingKey), null,
+                new RoleCatalog(null));
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 900L);
+        ReflectionTestUtils.setField(service, "refreshTokenExpiration", 604800L);
+        ReflectionTestUtils.setField(service, "issuer", ISSUER);
+        ReflectionTestUtils.setField(service, "audience", AUDIENCE);
+        service.initializeSigning();
+        return service;
+    }
+
+    public static AppUser user() {
+        AppUser user = new AppUser();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark_user");
+        user.setEmail("benchmark.user@example.com");
+        user.setRoles(Set.of(new UserRole("USER"), new UserRole("MODERATOR")));
+        return user;
+    }
+}
@@ -0,0 +1,36 @@
+package com.nguyenkhoi.benchmarks.support;
+
+import com.nguyenkhoi.api_gateway.config.GatewayProperties;
+import com.nguyenkhoi.api_gateway.filter.JwksKeyResolver;
+import com.nguyenkhoi.api_gateway.filter.JwtTokenValidator;
+import com.nguyenkhoi.api_gateway.filter.JwtVerificationScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Builds api-gateway components outside a Spring context. Keys come from
+ * {@link TestKeys} through the PEM fallback, so no JWKS endpoint is needed.
+ */
+public final class GatewayFixtures {
+
+    private GatewayFixtures() {
+    }
+
+    public static JwksKeyResolver keyResolver(GatewayProperties properties, String publicKeyPath) {
+        JwksKeyResolver resolver = new JwksKeyResolver(properties, new DefaultResourceLoader(), WebClient.builder());
+        ReflectionTestUtils.setField(resolver, "publicKeyPath", publicKeyPath);
+        resolver.initialize();
+        return resolver;
+    }
+
+    public static JwtTokenValidator jwtTokenValidator(GatewayProperties properties) {
+        return jwtTokenValidator(properties, TestKeys.writeRsaPublicKeyPem());
+    }
+
+    public static JwtTokenValidator jwtTokenValidator(GatewayProperties properties, String publicKeyPath) {
+        return new JwtTokenValidator(properties, keyResolver(properties, publicKeyPath),
+            new JwtVerificationScheduler(properties, new SimpleMeterRegistry()));
+    }
+}
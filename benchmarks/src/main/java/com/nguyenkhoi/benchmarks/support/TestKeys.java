@@ -0,0 +1,100 @@
+package com.nguyenkhoi.benchmarks.support;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Signing keys generated per benchmark JVM, so the suites run offline without the
+ * service key files.
+ */
+public final class TestKeys {
+
+    public static final String RSA_KEY_ID = "auth-service-rsa-1";
+
+    // DER prefix of an X.509 SubjectPublicKeyInfo for a raw 32-byte Ed25519 key
+    private static final byte[] ED25519_X509_PREFIX = HexFormat.of().parseHex("302a300506032b6570032100");
+
+    private static final RSAKey RSA = (RSAKey) generate(JWSAlgorithm.RS256);
+
+    private TestKeys() {
+    }
+
+    public static RSAKey rsaJwk() {
+        return RSA;
+    }
+
+    /**
+     * Generates a private JWK for RS256 (RSA-2048), ES256 (P-256) or EdDSA (Ed25519),
+     * with {@code kid} and {@code alg} set as the auth-service's JwtKeyConfig would.
+     */
+    public static JWK generate(JWSAlgorithm algorithm) {
+        try {
+            String keyId = "benchmark-" + algorithm.getName().toLowerCase();
+            if (JWSAlgorithm.RS256.equals(algorithm)) {
+                return new RSAKeyGenerator(2048).keyID(RSA_KEY_ID).algorithm(algorithm).generate();
+            }
+            if (JWSAlgorithm.ES256.equals(algorithm)) {
+                return new ECKeyGenerator(Curve.P_256).keyID(keyId).algorithm(algorithm).generate();
+            }
+            if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+                return new OctetKeyPairGenerator(Curve.Ed25519).keyID(keyId).algorithm(algorithm).generate();
+            }
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+        throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+    }
+
+    public static String writeRsaPublicKeyPem() {
+        return writePublicKeyPem(RSA);
+    }
+
+    /**
+     * Writes the public half of the key as an X.509 PEM file and returns its {@code file:}
+     * location, for the gateway's PEM fallback.
+     */
+    public static String writePublicKeyPem(JWK jwk) {
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(x509(jwk))
+            + "\n-----END PUBLIC KEY-----\n";
+        try {
+            Path file = Files.createTempFile("benchmark-jwt-public", ".pem");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, pem, StandardCharsets.US_ASCII);
+            return file.toUri().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] x509(JWK jwk) {
+        if (jwk instanceof OctetKeyPair okp) {
+            byte[] raw = okp.getDecodedX();
+            byte[] encoded = new byte[ED25519_X509_PREFIX.length + raw.length];
+            System.arraycopy(ED25519_X509_PREFIX, 0, encoded, 0, ED25519_X509_PREFIX.length);
+            System.arraycopy(raw, 0, encoded, ED25519_X509_PREFIX.length, raw.length);
+            return encoded;
+        }
+        try {
+            return ((AsymmetricJWK) jwk).toPublicKey().getEncoded();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}